@@ -0,0 +1,94 @@
+package gmai.jstyledcomponents;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.TimeUnit;
+
+import javax.imageio.ImageIO;
+import javax.swing.SwingUtilities;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures JBackground painting a photo sized image, at a stable size and while
+ * being resized, the image of the new size being loaded in background.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class BackgroundBenchmark {
+
+	private File imageFile;
+	private JBackground background;
+	private BufferedImage canvas;
+	private Graphics2D g2d;
+	private int resizeStep;
+
+	@Setup
+	public void setup() throws IOException, InterruptedException, InvocationTargetException {
+		BufferedImage photo = new BufferedImage(3000, 2000, BufferedImage.TYPE_INT_RGB);
+		Graphics2D pg2d = photo.createGraphics();
+		pg2d.setPaint(new GradientPaint(0, 0, Color.ORANGE, 3000, 2000, Color.MAGENTA));
+		pg2d.fillRect(0, 0, 3000, 2000);
+		pg2d.dispose();
+
+		imageFile = File.createTempFile("background", ".jpg");
+		ImageIO.write(photo, "jpg", imageFile);
+
+		background = new JBackground(imageFile.getPath(), new Dimension(1000, 700));
+		background.setSize(1000, 700);
+
+		canvas = new BufferedImage(1016, 716, BufferedImage.TYPE_INT_ARGB_PRE);
+		g2d = canvas.createGraphics();
+
+		// Paint until the orange corner of the photo is drawn, once it's decoded
+		// and scaled in background
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+		do {
+			if (System.nanoTime() > deadline) {
+				throw new IllegalStateException("Background image not loaded");
+			}
+			Thread.sleep(10);
+			SwingUtilities.invokeAndWait(() -> background.paintComponent(g2d));
+		} while (new Color(canvas.getRGB(0, 0)).getBlue() > 100);
+	}
+
+	@TearDown
+	public void tearDown() {
+		g2d.dispose();
+		imageFile.delete();
+	}
+
+	@Benchmark
+	public BufferedImage paintComponent() {
+		background.paintComponent(g2d);
+		return canvas;
+	}
+
+	@Benchmark
+	public BufferedImage paintComponentResizing() {
+		resizeStep = (resizeStep + 1) % 16;
+		background.setSize(1000 + resizeStep, 700 + resizeStep);
+		background.paintComponent(g2d);
+		return canvas;
+	}
+}
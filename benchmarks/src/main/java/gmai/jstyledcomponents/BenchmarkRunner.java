@@ -0,0 +1,27 @@
+package gmai.jstyledcomponents;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks selected by the JMH command line options with the GC
+ * profiler, so every result reports the allocation rate next to the time.
+ * <p>
+ * All the benchmarks are in the package of the components, so they can reach
+ * the package-private classes, such as ProcessLog and CheckableItemFilter.
+ */
+public class BenchmarkRunner {
+
+	public static void main(String[] args) throws Exception {
+		CommandLineOptions cmdOptions = new CommandLineOptions(args);
+		if (cmdOptions.shouldHelp() || cmdOptions.shouldList() || cmdOptions.shouldListProfilers()
+				|| cmdOptions.shouldListResultFormats()) {
+			org.openjdk.jmh.Main.main(args);
+			return;
+		}
+		new Runner(new OptionsBuilder().parent(cmdOptions).addProfiler(GCProfiler.class)
+				.jvmArgsAppend("-Djava.awt.headless=true").build()).run();
+	}
+}
@@ -0,0 +1,75 @@
+package gmai.jstyledcomponents;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.jhlabs.image.GaussianFilter;
+
+import gmai.jstyledcomponents.util.BoxBlur;
+
+/**
+ * Compares the BoxBlur engine with the jhlabs GaussianFilter previously used to
+ * blur the JRoundedCard shadows.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class BlurBenchmark {
+
+	@Param({ "200", "1000" })
+	private int width;
+
+	@Param({ "5", "20" })
+	private int radius;
+
+	private BufferedImage mask;
+	private BufferedImage work;
+	private int[] maskPixels;
+
+	@Setup
+	public void setup() {
+		int height = width * 3 / 5;
+		mask = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB_PRE);
+		Graphics2D g2d = mask.createGraphics();
+		g2d.setColor(new Color(0, 0, 0, 128));
+		g2d.fillRoundRect(radius * 2, radius * 2, width - radius * 4, height - radius * 4, 15, 15);
+		g2d.dispose();
+
+		work = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB_PRE);
+		maskPixels = (int[]) mask.getRaster().getDataElements(0, 0, width, height, null);
+	}
+
+	@Benchmark
+	public BufferedImage gaussianFilter() {
+		return new GaussianFilter(radius).filter(mask, null);
+	}
+
+	@Benchmark
+	public BufferedImage boxBlur() {
+		work.getRaster().setDataElements(0, 0, work.getWidth(), work.getHeight(), maskPixels);
+		return BoxBlur.blur(work, radius);
+	}
+
+	@Benchmark
+	public BufferedImage boxBlurSequential() {
+		work.getRaster().setDataElements(0, 0, work.getWidth(), work.getHeight(), maskPixels);
+		return BoxBlur.blur(work, radius, false);
+	}
+}
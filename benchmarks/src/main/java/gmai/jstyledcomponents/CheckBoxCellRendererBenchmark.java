@@ -0,0 +1,61 @@
+package gmai.jstyledcomponents;
+
+import java.awt.Component;
+import java.util.concurrent.TimeUnit;
+
+import javax.swing.JList;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the CheckBoxCellRenderer rendering the closed combo box summary and
+ * the popup cells, for lists of different sizes.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class CheckBoxCellRendererBenchmark {
+
+	@Param({ "10", "1000", "100000" })
+	private int items;
+
+	private JList<CheckableItem> list;
+	private CheckBoxCellRenderer<CheckableItem> renderer;
+	private int index;
+
+	@Setup
+	public void setup() {
+		CheckableItem[] model = new CheckableItem[items];
+		for (int i = 0; i < items; i++) {
+			// One item out of ten is selected
+			model[i] = new CheckableItem("Item " + i, i % 10 == 0);
+		}
+		list = new JList<>(model);
+		renderer = new CheckBoxCellRenderer<>(new JCheckedComboBox<>(model));
+	}
+
+	@Benchmark
+	public Component renderSummary() {
+		return renderer.getListCellRendererComponent(list, null, -1, false, false);
+	}
+
+	@Benchmark
+	public Component renderCell() {
+		index = (index + 1) % items;
+		return renderer.getListCellRendererComponent(list, list.getModel().getElementAt(index), index,
+				index % 7 == 0, false);
+	}
+}
@@ -0,0 +1,57 @@
+package gmai.jstyledcomponents;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.swing.DefaultListModel;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the popup filter of JCheckedComboBox for one keystroke, the query
+ * growing from one character to a whole item, once the index is built.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class CheckableItemFilterBenchmark {
+
+	private static final String[] QUERIES = { "i", "it", "item 1", "item 12", "item 123", "blue", "b" };
+
+	@Param({ "1000", "100000" })
+	private int items;
+
+	private CheckableItemFilter<CheckableItem> filter;
+	private int query;
+
+	@Setup
+	public void setup() {
+		DefaultListModel<CheckableItem> model = new DefaultListModel<>();
+		String[] colors = { "Red", "Green", "Blue", "Dark blue" };
+		for (int i = 0; i < items; i++) {
+			model.addElement(new CheckableItem(colors[i % colors.length] + " item " + i));
+		}
+		filter = new CheckableItemFilter<>();
+		filter.setSource(model);
+		filter.setQuery("i");
+	}
+
+	@Benchmark
+	public int filter() {
+		query = (query + 1) % QUERIES.length;
+		filter.setQuery(QUERIES[query]);
+		return filter.getSize();
+	}
+}
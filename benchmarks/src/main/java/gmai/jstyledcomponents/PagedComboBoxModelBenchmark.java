@@ -0,0 +1,54 @@
+package gmai.jstyledcomponents;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the startup of a JCheckedComboBox, building all its items up front
+ * or loading them by pages with a PagedComboBoxModel.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class PagedComboBoxModelBenchmark {
+
+	@Param({ "10000", "100000" })
+	private int items;
+
+	@Param({ "false", "true" })
+	private boolean paged;
+
+	@Benchmark
+	public Object create() {
+		JCheckedComboBox<CheckableItem> comboBox;
+		if (paged) {
+			comboBox = new JCheckedComboBox<>(new PagedComboBoxModel<>(items, PagedComboBoxModelBenchmark::load));
+		} else {
+			comboBox = new JCheckedComboBox<>(load(0, items).toArray(new CheckableItem[0]));
+		}
+		return comboBox.getPreferredSize();
+	}
+
+	private static List<CheckableItem> load(int from, int to) {
+		List<CheckableItem> page = new ArrayList<>(to - from);
+		for (int i = from; i < to; i++) {
+			page.add(new CheckableItem("Item " + i, new int[] { i }));
+		}
+		return page;
+	}
+}
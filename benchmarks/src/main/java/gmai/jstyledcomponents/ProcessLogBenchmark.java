@@ -0,0 +1,118 @@
+package gmai.jstyledcomponents;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import javax.swing.JTextPane;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the JPromptProcess log ingestion, from reading the process output
+ * to the lines being in the text area. The output comes from a process whose
+ * streams are in memory, read by the same reader threads as a real process.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class ProcessLogBenchmark {
+
+	@Param({ "1000", "20000" })
+	private int lines;
+
+	@Param({ "false", "true" })
+	private boolean ansiColors;
+
+	private byte[] output;
+	private JTextPane textPane;
+	private ProcessLog log;
+
+	@Setup(Level.Trial)
+	public void setupOutput() {
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < lines; i++) {
+			if (i % 5 == 0) {
+				sb.append("\u001B[1;32m[INFO]\u001B[0m ");
+			}
+			sb.append("Compiling source file ").append(i).append(" of the module\n");
+		}
+		output = sb.toString().getBytes(StandardCharsets.UTF_8);
+	}
+
+	@Setup(Level.Iteration)
+	public void setupLog() {
+		textPane = new JTextPane();
+		log = new ProcessLog(textPane, () -> {
+			textPane.revalidate();
+			textPane.repaint();
+		});
+		log.setAnsiColors(ansiColors);
+	}
+
+	@Benchmark
+	public JTextPane log() throws Exception {
+		log.log(new OutputProcess(output));
+		return textPane;
+	}
+
+	/**
+	 * A finished process whose standard output is the given bytes, and whose
+	 * error output is empty.
+	 */
+	private static final class OutputProcess extends Process {
+
+		private final InputStream stdout;
+		private final InputStream stderr = new ByteArrayInputStream(new byte[0]);
+
+		OutputProcess(byte[] output) {
+			this.stdout = new ByteArrayInputStream(output);
+		}
+
+		@Override
+		public OutputStream getOutputStream() {
+			return new ByteArrayOutputStream();
+		}
+
+		@Override
+		public InputStream getInputStream() {
+			return stdout;
+		}
+
+		@Override
+		public InputStream getErrorStream() {
+			return stderr;
+		}
+
+		@Override
+		public int waitFor() {
+			return 0;
+		}
+
+		@Override
+		public int exitValue() {
+			return 0;
+		}
+
+		@Override
+		public void destroy() {
+		}
+	}
+}
@@ -0,0 +1,57 @@
+package gmai.jstyledcomponents;
+
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import gmai.jstyledcomponents.util.ImageUtil;
+import gmai.jstyledcomponents.util.ResizeQuality;
+
+/**
+ * Measures ImageUtil.resize downscaling a photo sized image to a background
+ * and to an icon with each strategy.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class ResizeBenchmark {
+
+	@Param({ "800", "50" })
+	private int targetWidth;
+
+	@Param({ "SPEED", "BALANCED", "QUALITY" })
+	private ResizeQuality quality;
+
+	private BufferedImage source;
+
+	@Setup
+	public void setup() {
+		source = new BufferedImage(4000, 3000, BufferedImage.TYPE_INT_RGB);
+		Graphics2D g2d = source.createGraphics();
+		g2d.setPaint(new GradientPaint(0, 0, Color.RED, 4000, 3000, Color.BLUE));
+		g2d.fillRect(0, 0, 4000, 3000);
+		g2d.dispose();
+	}
+
+	@Benchmark
+	public BufferedImage resize() {
+		return ImageUtil.resize(source, targetWidth, targetWidth * 3 / 4, quality);
+	}
+}
@@ -0,0 +1,90 @@
+package gmai.jstyledcomponents;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the JRoundedCard painting: a repaint at the same size, a repaint
+ * after each resize, and the shadow generation alone.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class RoundedCardBenchmark {
+
+	@Param({ "300", "1200" })
+	private int width;
+
+	@Param({ "false", "true" })
+	private boolean nineSliceShadow;
+
+	private JRoundedCard card;
+	private BufferedImage canvas;
+	private Graphics2D g2d;
+	private BufferedImage mask;
+	private int resizeStep;
+
+	@Setup
+	public void setup() {
+		card = new JRoundedCard();
+		card.setNineSliceShadow(nineSliceShadow);
+		card.setSize(width, width / 2);
+
+		canvas = new BufferedImage(width + 16, width / 2 + 16, BufferedImage.TYPE_INT_ARGB_PRE);
+		g2d = canvas.createGraphics();
+
+		mask = card.createCompatibleImage(width - 10, width / 2 - 10);
+		Graphics2D mg2d = mask.createGraphics();
+		mg2d.setColor(Color.BLACK);
+		mg2d.fillRoundRect(0, 0, mask.getWidth(), mask.getHeight(), 15, 15);
+		mg2d.dispose();
+	}
+
+	@TearDown
+	public void tearDown() {
+		g2d.dispose();
+	}
+
+	@Benchmark
+	public BufferedImage paintComponent() {
+		card.paintComponent(g2d);
+		return canvas;
+	}
+
+	@Benchmark
+	public BufferedImage paintComponentResizing() {
+		// Grow by one pixel at each call, like a live window resize
+		resizeStep = (resizeStep + 1) % 16;
+		card.setSize(width + resizeStep, width / 2 + resizeStep);
+		card.paintComponent(g2d);
+		return canvas;
+	}
+
+	@Benchmark
+	public BufferedImage generateShadow() {
+		return card.generateShadow(mask, card.getShadowSize(), Color.BLACK, 0.5f);
+	}
+
+	@Benchmark
+	public BufferedImage generateBlur() {
+		return card.generateBlur(mask, card.getShadowSize(), Color.BLACK, 0.5f);
+	}
+}
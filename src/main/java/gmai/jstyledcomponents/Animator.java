@@ -0,0 +1,84 @@
+package gmai.jstyledcomponents;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.swing.Timer;
+
+/**
+ * Drives the animations of the components from a single Swing timer. The
+ * animations run on the EDT, each component has at most one animation, and the
+ * timer only runs while some animation is active.
+ */
+final class Animator {
+
+	/**
+	 * Delay between two frames, about 60 frames per second.
+	 */
+	private static final int FRAME_DELAY = 16;
+
+	private static final Map<Object, Animation> ANIMATIONS = new LinkedHashMap<>();
+	private static final Timer TIMER = new Timer(FRAME_DELAY, e -> tick());
+
+	private Animator() {
+	}
+
+	/**
+	 * A time based animation.
+	 */
+	interface Animation {
+
+		/**
+		 * Updates the animation to the given time.
+		 * 
+		 * @param now the current time, in nanoseconds
+		 * @return true while the animation is not finished
+		 */
+		boolean update(long now);
+	}
+
+	/**
+	 * Starts the animation of the given component, cancelling its previous
+	 * animation. Must be called on the EDT.
+	 * 
+	 * @param owner     the animated component
+	 * @param animation the animation
+	 */
+	static void start(Object owner, Animation animation) {
+		ANIMATIONS.put(owner, animation);
+		if (!TIMER.isRunning()) {
+			TIMER.start();
+		}
+	}
+
+	/**
+	 * Cancels the animation of the given component. Must be called on the EDT.
+	 * 
+	 * @param owner the animated component
+	 */
+	static void stop(Object owner) {
+		ANIMATIONS.remove(owner);
+		if (ANIMATIONS.isEmpty()) {
+			TIMER.stop();
+		}
+	}
+
+	/**
+	 * Updates all the active animations and removes the finished ones.
+	 */
+	private static void tick() {
+		long now = System.nanoTime();
+		// Animations may start or stop other animations while updating
+		List<Map.Entry<Object, Animation>> active = new ArrayList<>(ANIMATIONS.entrySet());
+		for (Map.Entry<Object, Animation> entry : active) {
+			if (!entry.getValue().update(now)) {
+				ANIMATIONS.remove(entry.getKey(), entry.getValue());
+			}
+		}
+		if (ANIMATIONS.isEmpty()) {
+			TIMER.stop();
+		}
+	}
+}
@@ -0,0 +1,293 @@
+package gmai.jstyledcomponents;
+
+import java.awt.Color;
+import java.util.Arrays;
+
+/**
+ * Removes the ANSI escape sequences from the lines of a process output and,
+ * optionally, tracks the SGR (Select Graphic Rendition) codes to color the
+ * text. The parser is a state machine over the characters of each line. A line
+ * without escape sequences is returned as is, without any allocation.
+ * <p>
+ * The graphic state is packed in a long: the foreground RGB and a set flag,
+ * the background RGB and a set flag, and the bold, italic and underline flags.
+ * A state of 0 is the default style. The state carries over from one line to
+ * the next, like in a terminal, so each output stream needs its own parser.
+ */
+final class AnsiParser {
+
+	private static final char ESC = '\u001B';
+	private static final char BEL = '\u0007';
+
+	static final long FG_SET = 1L << 24;
+	static final int BG_SHIFT = 25;
+	static final long BG_SET = 1L << 49;
+	static final long BOLD = 1L << 50;
+	static final long ITALIC = 1L << 51;
+	static final long UNDERLINE = 1L << 52;
+
+	private static final long FG_MASK = FG_SET | 0xFFFFFF;
+	private static final long BG_MASK = BG_SET | (0xFFFFFFL << BG_SHIFT);
+
+	/**
+	 * The 16 standard terminal colors, normal and bright.
+	 */
+	private static final int[] PALETTE = { 0x000000, 0xCD3131, 0x0DBC79, 0xE5E510, 0x2472C8, 0xBC3FBC, 0x11A8CD,
+			0xE5E5E5, 0x666666, 0xF14C4C, 0x23D18B, 0xF5F543, 0x3B8EEA, 0xD670D6, 0x29B8DB, 0xFFFFFF };
+
+	private final boolean colors;
+	private final StringBuilder text = new StringBuilder();
+	private final int[] params = new int[16];
+
+	private long state;
+	private int runCount;
+	private int[] runEnds = new int[4];
+	private long[] runStates = new long[4];
+
+	/**
+	 * Constructs a parser.
+	 *
+	 * @param colors true to track the SGR codes, false to only strip the escape
+	 *               sequences
+	 */
+	AnsiParser(boolean colors) {
+		this.colors = colors;
+	}
+
+	/**
+	 * Returns the graphic state at the end of the last parsed line, which is the
+	 * state the next line starts with.
+	 *
+	 * @return the packed graphic state
+	 */
+	long getState() {
+		return state;
+	}
+
+	/**
+	 * Parses a line. When colors are tracked and the style changes inside the
+	 * line, the runs before the last change are available until the next call,
+	 * the rest of the line has the state returned by getState.
+	 *
+	 * @param line the raw line
+	 * @return the line without escape sequences
+	 */
+	String parse(String line) {
+		runCount = 0;
+		int esc = line.indexOf(ESC);
+		if (esc < 0) {
+			return line;
+		}
+
+		text.setLength(0);
+		text.append(line, 0, esc);
+		int i = esc;
+		int length = line.length();
+
+		while (i < length) {
+			char c = line.charAt(i++);
+			if (c != ESC) {
+				text.append(c);
+				continue;
+			}
+			if (i >= length) {
+				break;
+			}
+
+			char kind = line.charAt(i++);
+			if (kind == '[') {
+				// CSI: parameters and intermediate bytes, then a final byte
+				int start = i;
+				while (i < length && (line.charAt(i) < 0x40 || line.charAt(i) > 0x7E)) {
+					i++;
+				}
+				if (i < length && line.charAt(i++) == 'm' && colors) {
+					applySgr(line, start, i - 1);
+				}
+			} else if (kind == ']') {
+				// OSC: ends with BEL or ESC \
+				while (i < length) {
+					char o = line.charAt(i++);
+					if (o == BEL) {
+						break;
+					}
+					if (o == ESC && i < length && line.charAt(i) == '\\') {
+						i++;
+						break;
+					}
+				}
+			}
+			// Any other escape is a single character after ESC
+		}
+		return text.toString();
+	}
+
+	/**
+	 * Returns the number of style runs of the last parsed line, 0 if the whole
+	 * line has the state it started with.
+	 *
+	 * @return the number of runs
+	 */
+	int getRunCount() {
+		return runCount;
+	}
+
+	/**
+	 * Returns a copy of the end offsets of the runs of the last parsed line.
+	 *
+	 * @return the run ends
+	 */
+	int[] copyRunEnds() {
+		int[] copy = new int[runCount];
+		System.arraycopy(runEnds, 0, copy, 0, runCount);
+		return copy;
+	}
+
+	/**
+	 * Returns a copy of the graphic states of the runs of the last parsed line.
+	 *
+	 * @return the run states
+	 */
+	long[] copyRunStates() {
+		long[] copy = new long[runCount];
+		System.arraycopy(runStates, 0, copy, 0, runCount);
+		return copy;
+	}
+
+	/**
+	 * Applies the SGR parameters between start and end to the state, and closes
+	 * the current run if the state changed.
+	 */
+	private void applySgr(String line, int start, int end) {
+		int count = 0;
+		int value = 0;
+		boolean digits = false;
+		for (int i = start; i <= end; i++) {
+			char c = i < end ? line.charAt(i) : ';';
+			if (c >= '0' && c <= '9') {
+				value = value * 10 + (c - '0');
+				digits = true;
+			} else if (c == ';' || c == ':') {
+				if (count < params.length) {
+					params[count++] = digits ? value : 0;
+				}
+				value = 0;
+				digits = false;
+			} else {
+				// Private or unknown sequence, not a graphic rendition
+				return;
+			}
+		}
+
+		long next = state;
+		for (int p = 0; p < count; p++) {
+			int code = params[p];
+			if (code == 0) {
+				next = 0;
+			} else if (code == 1) {
+				next |= BOLD;
+			} else if (code == 3) {
+				next |= ITALIC;
+			} else if (code == 4) {
+				next |= UNDERLINE;
+			} else if (code == 22) {
+				next &= ~BOLD;
+			} else if (code == 23) {
+				next &= ~ITALIC;
+			} else if (code == 24) {
+				next &= ~UNDERLINE;
+			} else if (code >= 30 && code <= 37) {
+				next = (next & ~FG_MASK) | FG_SET | PALETTE[code - 30];
+			} else if (code >= 90 && code <= 97) {
+				next = (next & ~FG_MASK) | FG_SET | PALETTE[code - 90 + 8];
+			} else if (code == 39) {
+				next &= ~FG_MASK;
+			} else if (code >= 40 && code <= 47) {
+				next = (next & ~BG_MASK) | BG_SET | ((long) PALETTE[code - 40] << BG_SHIFT);
+			} else if (code >= 100 && code <= 107) {
+				next = (next & ~BG_MASK) | BG_SET | ((long) PALETTE[code - 100 + 8] << BG_SHIFT);
+			} else if (code == 49) {
+				next &= ~BG_MASK;
+			} else if ((code == 38 || code == 48) && p + 1 < count) {
+				int rgb = -1;
+				if (params[p + 1] == 5 && p + 2 < count) {
+					rgb = indexedColor(params[p + 2]);
+					p += 2;
+				} else if (params[p + 1] == 2 && p + 4 < count) {
+					rgb = (clamp(params[p + 2]) << 16) | (clamp(params[p + 3]) << 8) | clamp(params[p + 4]);
+					p += 4;
+				}
+				if (rgb >= 0 && code == 38) {
+					next = (next & ~FG_MASK) | FG_SET | rgb;
+				} else if (rgb >= 0) {
+					next = (next & ~BG_MASK) | BG_SET | ((long) rgb << BG_SHIFT);
+				}
+			}
+		}
+
+		if (next != state) {
+			addRun(text.length(), state);
+			state = next;
+		}
+	}
+
+	/**
+	 * Adds a run ending at the given offset, unless it is empty.
+	 */
+	private void addRun(int runEnd, long runState) {
+		if (runEnd == (runCount > 0 ? runEnds[runCount - 1] : 0)) {
+			return;
+		}
+		if (runCount == runEnds.length) {
+			runEnds = Arrays.copyOf(runEnds, runCount * 2);
+			runStates = Arrays.copyOf(runStates, runCount * 2);
+		}
+		runEnds[runCount] = runEnd;
+		runStates[runCount] = runState;
+		runCount++;
+	}
+
+	/**
+	 * Returns the RGB of a color of the 256 colors palette.
+	 */
+	private static int indexedColor(int index) {
+		if (index < 16) {
+			return PALETTE[Math.max(index, 0)];
+		}
+		if (index < 232) {
+			// 6x6x6 color cube
+			int i = index - 16;
+			return (cubeLevel(i / 36) << 16) | (cubeLevel((i / 6) % 6) << 8) | cubeLevel(i % 6);
+		}
+		int gray = 8 + (Math.min(index, 255) - 232) * 10;
+		return (gray << 16) | (gray << 8) | gray;
+	}
+
+	private static int cubeLevel(int level) {
+		return level == 0 ? 0 : 55 + level * 40;
+	}
+
+	private static int clamp(int value) {
+		return Math.min(Math.max(value, 0), 255);
+	}
+
+	/**
+	 * Returns the foreground color of a state, or null for the default.
+	 *
+	 * @param state the packed graphic state
+	 * @return the foreground color
+	 */
+	static Color foreground(long state) {
+		return (state & FG_SET) != 0 ? new Color((int) (state & 0xFFFFFF)) : null;
+	}
+
+	/**
+	 * Returns the background color of a state, or null for the default.
+	 *
+	 * @param state the packed graphic state
+	 * @return the background color
+	 */
+	static Color background(long state) {
+		return (state & BG_SET) != 0 ? new Color((int) ((state >>> BG_SHIFT) & 0xFFFFFF)) : null;
+	}
+}
@@ -0,0 +1,112 @@
+package gmai.jstyledcomponents;
+
+/**
+ * Represents an item that can be checked or unchecked.
+ */
+class CheckableItem {
+	/**
+	 * The text associated with the item.
+	 */
+	public final String text;
+
+	/**
+	 * Whether the item is selected, updated by a JCheckedComboBox holding it.
+	 */
+	private boolean selected;
+
+	/**
+	 * Additional data associated with the item.
+	 */
+	public final Object data;
+
+	/**
+	 * Constructs a new CheckableItem with the given text.
+	 * 
+	 * @param text The text associated with the item.
+	 */
+	protected CheckableItem(String text) {
+		this.text = text;
+		this.selected = false;
+		this.data = null;
+	}
+
+	/**
+	 * Constructs a new CheckableItem with the given text and selection status.
+	 * 
+	 * @param text     The text associated with the item.
+	 * @param selected Whether the item is initially selected or not.
+	 */
+	protected CheckableItem(String text, boolean selected) {
+		this.text = text;
+		this.selected = selected;
+		this.data = null;
+	}
+
+	/**
+	 * Constructs a new CheckableItem with the given text and additional data.
+	 * 
+	 * @param text The text associated with the item.
+	 * @param data Additional data associated with the item.
+	 */
+	protected CheckableItem(String text, Object data) {
+		this.text = text;
+		this.selected = false;
+		this.data = data;
+	}
+
+	/**
+	 * Constructs a new CheckableItem with the given text, additional data, and
+	 * selection status.
+	 * 
+	 * @param text     The text associated with the item.
+	 * @param data     Additional data associated with the item.
+	 * @param selected Whether the item is initially selected or not.
+	 */
+	protected CheckableItem(String text, Object data, boolean selected) {
+		this.text = text;
+		this.selected = selected;
+		this.data = data;
+	}
+
+	/**
+	 * Returns whether the item is selected. A JCheckedComboBox holds the state in
+	 * its selection model, and updates its items when they are checked or
+	 * unchecked, except the items of a PagedComboBoxModel, which may not be
+	 * loaded.
+	 * 
+	 * @return Whether the item is selected or not.
+	 */
+	public boolean isSelected() {
+		return selected;
+	}
+
+	/**
+	 * Sets the selection status of the item. An item added to a JCheckedComboBox
+	 * is checked from this status, afterwards the item must be checked with the
+	 * getSelectionModel() of the combo box, which updates this status.
+	 * 
+	 * @param selected Whether the item should be selected or not.
+	 */
+	public void setSelected(boolean selected) {
+		this.selected = selected;
+	}
+
+	/**
+	 * Returns the additional data associated with the item.
+	 * 
+	 * @return The additional data associated with the item.
+	 */
+	public Object getData() {
+		return data;
+	}
+
+	/**
+	 * Returns the text associated with the item.
+	 * 
+	 * @return The text associated with the item.
+	 */
+	@Override
+	public String toString() {
+		return text;
+	}
+}
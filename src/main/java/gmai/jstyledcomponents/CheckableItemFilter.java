@@ -0,0 +1,360 @@
+package gmai.jstyledcomponents;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Locale;
+import java.util.Objects;
+
+import javax.swing.AbstractListModel;
+import javax.swing.ListModel;
+import javax.swing.event.ListDataEvent;
+import javax.swing.event.ListDataListener;
+
+/**
+ * The items of a JCheckedComboBox shown in its popup, narrowed to the items
+ * having a word starting with the filter text. The filter uses a sorted index
+ * of the words of the items, so a query is a binary search followed by a scan
+ * of the matching words only. The index is built by the first query. While a
+ * filter is applied, the words of the changed items are updated in place, and
+ * otherwise a change drops the index until the next query.
+ * <p>
+ * The filtered rows map to the indexes of the source model, so the selection,
+ * held by the combo box, isn't affected by the filter.
+ *
+ * @param <E> the type of CheckableItem filtered
+ */
+final class CheckableItemFilter<E extends CheckableItem> extends AbstractListModel<E> implements ListDataListener {
+
+	private ListModel<E> source;
+	private String query = "";
+	/**
+	 * The source indexes of the rows, or null when there is no filter.
+	 */
+	private int[] rows;
+
+	/**
+	 * The lower case texts of the items, and the words of the index, as an item
+	 * index and an offset in its text, sorted by the text starting at the word.
+	 * Null until the next query when the items change.
+	 */
+	private String[] texts;
+	private int[] wordItems;
+	private int[] wordOffsets;
+
+	/**
+	 * Sets the model whose items are filtered, and removes the filter.
+	 *
+	 * @param source the model of the combo box
+	 */
+	void setSource(ListModel<E> source) {
+		if (this.source != null) {
+			this.source.removeListDataListener(this);
+		}
+		this.source = source;
+		source.addListDataListener(this);
+		texts = null;
+		query = "";
+		rows = null;
+		fireContentsChanged(this, 0, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Returns the filter text.
+	 *
+	 * @return the filter text, empty when there is no filter
+	 */
+	String getQuery() {
+		return query;
+	}
+
+	/**
+	 * Shows only the items having a word starting with the given text, ignoring
+	 * the case.
+	 *
+	 * @param query the filter text, or an empty string to show all the items
+	 */
+	void setQuery(String query) {
+		this.query = query;
+		filter();
+		fireContentsChanged(this, 0, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Returns the index in the source model of a row.
+	 *
+	 * @param row the row index
+	 * @return the source index, or -1 for an invalid row
+	 */
+	int toModelIndex(int row) {
+		if (rows == null) {
+			return row;
+		}
+		return row >= 0 && row < rows.length ? rows[row] : -1;
+	}
+
+	@Override
+	public int getSize() {
+		return rows == null ? source.getSize() : rows.length;
+	}
+
+	@Override
+	public E getElementAt(int index) {
+		return source.getElementAt(toModelIndex(index));
+	}
+
+	@Override
+	public void intervalAdded(ListDataEvent e) {
+		if (rows == null) {
+			texts = null;
+			fireIntervalAdded(this, e.getIndex0(), e.getIndex1());
+			return;
+		}
+		int from = e.getIndex0();
+		int length = e.getIndex1() - from + 1;
+		String[] added = new String[texts.length + length];
+		System.arraycopy(texts, 0, added, 0, from);
+		System.arraycopy(texts, from, added, from + length, texts.length - from);
+		texts = added;
+		readTexts(from, from + length);
+		removeWords(from, from, length);
+		addWords(from, from + length);
+		setQuery(query);
+	}
+
+	@Override
+	public void intervalRemoved(ListDataEvent e) {
+		if (rows == null) {
+			texts = null;
+			fireIntervalRemoved(this, e.getIndex0(), e.getIndex1());
+			return;
+		}
+		int from = e.getIndex0();
+		int to = e.getIndex1() + 1;
+		String[] removed = new String[texts.length - (to - from)];
+		System.arraycopy(texts, 0, removed, 0, from);
+		System.arraycopy(texts, to, removed, from, texts.length - to);
+		texts = removed;
+		removeWords(from, to, from - to);
+		setQuery(query);
+	}
+
+	@Override
+	public void contentsChanged(ListDataEvent e) {
+		// A change of the selected item has no index
+		if (e.getIndex0() < 0) {
+			return;
+		}
+		if (rows == null) {
+			texts = null;
+			fireContentsChanged(this, e.getIndex0(), e.getIndex1());
+			return;
+		}
+		int from = e.getIndex0();
+		int to = e.getIndex1() + 1;
+		readTexts(from, to);
+		removeWords(from, to, 0);
+		addWords(from, to);
+		setQuery(query);
+	}
+
+	/**
+	 * Computes the rows matching the query.
+	 */
+	private void filter() {
+		if (query.isEmpty()) {
+			rows = null;
+			return;
+		}
+		if (texts == null) {
+			buildIndex();
+		}
+
+		String lower = query.toLowerCase(Locale.ROOT);
+		// First word not lower than the query, then all the words it prefixes
+		int low = 0;
+		int high = wordItems.length;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (compare(texts[wordItems[middle]], wordOffsets[middle], lower) < 0) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+
+		BitSet matches = new BitSet(texts.length);
+		for (int i = low; i < wordItems.length
+				&& texts[wordItems[i]].startsWith(lower, wordOffsets[i]); i++) {
+			matches.set(wordItems[i]);
+		}
+		rows = matches.stream().toArray();
+	}
+
+	/**
+	 * Indexes the start of each word of the items.
+	 */
+	private void buildIndex() {
+		texts = new String[source.getSize()];
+		readTexts(0, texts.length);
+		wordItems = new int[0];
+		wordOffsets = new int[0];
+		addWords(0, texts.length);
+	}
+
+	/**
+	 * Reads the lower case texts of the items between from, inclusive, and to,
+	 * exclusive.
+	 */
+	private void readTexts(int from, int to) {
+		for (int i = from; i < to; i++) {
+			texts[i] = Objects.toString(source.getElementAt(i), "").toLowerCase(Locale.ROOT);
+		}
+	}
+
+	/**
+	 * Removes the words of the items between from, inclusive, and to, exclusive,
+	 * and moves the words of the next items by the given shift. The words stay
+	 * sorted.
+	 */
+	private void removeWords(int from, int to, int shift) {
+		int count = 0;
+		for (int i = 0; i < wordItems.length; i++) {
+			int item = wordItems[i];
+			if (item < from || item >= to) {
+				wordItems[count] = item < from ? item : item + shift;
+				wordOffsets[count] = wordOffsets[i];
+				count++;
+			}
+		}
+		if (count < wordItems.length) {
+			wordItems = Arrays.copyOf(wordItems, count);
+			wordOffsets = Arrays.copyOf(wordOffsets, count);
+		}
+	}
+
+	/**
+	 * Indexes the words of the items between from, inclusive, and to, exclusive.
+	 * The new words are sorted, then merged with the indexed words.
+	 */
+	private void addWords(int from, int to) {
+		int[] items = new int[Math.max(16, to - from)];
+		int[] offsets = new int[items.length];
+		int count = 0;
+
+		for (int i = from; i < to; i++) {
+			String text = texts[i];
+			for (int j = 0; j < text.length(); j++) {
+				if (Character.isLetterOrDigit(text.charAt(j))
+						&& (j == 0 || !Character.isLetterOrDigit(text.charAt(j - 1)))) {
+					if (count == items.length) {
+						items = Arrays.copyOf(items, count * 2);
+						offsets = Arrays.copyOf(offsets, count * 2);
+					}
+					items[count] = i;
+					offsets[count] = j;
+					count++;
+				}
+			}
+		}
+
+		int[] order = new int[count];
+		for (int i = 0; i < count; i++) {
+			order[i] = i;
+		}
+		sort(order, 0, count, 0, items, offsets);
+
+		int[] mergedItems = new int[wordItems.length + count];
+		int[] mergedOffsets = new int[mergedItems.length];
+		int a = 0;
+		int b = 0;
+		for (int i = 0; i < mergedItems.length; i++) {
+			if (b == count || a < wordItems.length && compare(texts[wordItems[a]], wordOffsets[a],
+					texts[items[order[b]]], offsets[order[b]]) <= 0) {
+				mergedItems[i] = wordItems[a];
+				mergedOffsets[i] = wordOffsets[a++];
+			} else {
+				mergedItems[i] = items[order[b]];
+				mergedOffsets[i] = offsets[order[b++]];
+			}
+		}
+		wordItems = mergedItems;
+		wordOffsets = mergedOffsets;
+	}
+
+	/**
+	 * Sorts the words between lo, inclusive, and hi, exclusive, having the same
+	 * first depth characters, with a three way radix quicksort. Unlike a
+	 * comparison sort, the common prefixes of the words are read only once.
+	 */
+	private void sort(int[] order, int lo, int hi, int depth, int[] items, int[] offsets) {
+		while (hi - lo > 1) {
+			if (hi - lo < 16) {
+				for (int i = lo + 1; i < hi; i++) {
+					for (int j = i; j > lo && compare(texts[items[order[j - 1]]], offsets[order[j - 1]] + depth,
+							texts[items[order[j]]], offsets[order[j]] + depth) > 0; j--) {
+						swap(order, j - 1, j);
+					}
+				}
+				return;
+			}
+
+			int pivot = charAt(order[(lo + hi) >>> 1], depth, items, offsets);
+			int lt = lo;
+			int gt = hi - 1;
+			int i = lo;
+			while (i <= gt) {
+				int c = charAt(order[i], depth, items, offsets);
+				if (c < pivot) {
+					swap(order, lt++, i++);
+				} else if (c > pivot) {
+					swap(order, i, gt--);
+				} else {
+					i++;
+				}
+			}
+
+			sort(order, lo, lt, depth, items, offsets);
+			if (pivot >= 0) {
+				sort(order, lt, gt + 1, depth + 1, items, offsets);
+			}
+			lo = gt + 1;
+		}
+	}
+
+	/**
+	 * Returns the character of a word at the given depth, or -1 after its end.
+	 */
+	private int charAt(int word, int depth, int[] items, int[] offsets) {
+		String text = texts[items[word]];
+		int i = offsets[word] + depth;
+		return i < text.length() ? text.charAt(i) : -1;
+	}
+
+	private static void swap(int[] a, int i, int j) {
+		int t = a[i];
+		a[i] = a[j];
+		a[j] = t;
+	}
+
+	/**
+	 * Compares the text starting at an offset with the query.
+	 */
+	private static int compare(String text, int offset, String query) {
+		return compare(text, offset, query, 0);
+	}
+
+	/**
+	 * Compares two texts starting at the given offsets.
+	 */
+	private static int compare(String a, int aOffset, String b, int bOffset) {
+		int length = Math.min(a.length() - aOffset, b.length() - bOffset);
+		for (int i = 0; i < length; i++) {
+			char ca = a.charAt(aOffset + i);
+			char cb = b.charAt(bOffset + i);
+			if (ca != cb) {
+				return ca - cb;
+			}
+		}
+		return (a.length() - aOffset) - (b.length() - bOffset);
+	}
+}
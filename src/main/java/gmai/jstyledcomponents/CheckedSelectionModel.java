@@ -0,0 +1,216 @@
+package gmai.jstyledcomponents;
+
+import java.util.BitSet;
+import java.util.stream.IntStream;
+
+import javax.swing.event.EventListenerList;
+import javax.swing.event.ListSelectionEvent;
+import javax.swing.event.ListSelectionListener;
+
+/**
+ * The CheckedSelectionModel class holds the checked items of a
+ * JCheckedComboBox, as a BitSet indexed by the position of the items in the
+ * model. The bulk operations work on whole words of the BitSet and fire a
+ * single ListSelectionEvent covering the changed range.
+ * <p>
+ * The combo box keeps the model size and the indexes in line with its
+ * ComboBoxModel, without firing events.
+ */
+public class CheckedSelectionModel {
+
+	private final BitSet selected = new BitSet();
+	private final EventListenerList listeners = new EventListenerList();
+	private int size;
+	private int count;
+
+	/**
+	 * Returns the number of items.
+	 *
+	 * @return the number of items
+	 */
+	public int getSize() {
+		return size;
+	}
+
+	/**
+	 * Returns the number of checked items.
+	 *
+	 * @return the number of checked items
+	 */
+	public int getSelectedCount() {
+		return count;
+	}
+
+	/**
+	 * Returns whether the item at the given index is checked.
+	 *
+	 * @param index the index of the item
+	 * @return true if the item is checked
+	 */
+	public boolean isSelected(int index) {
+		return selected.get(index);
+	}
+
+	/**
+	 * Checks or unchecks the item at the given index.
+	 *
+	 * @param index    the index of the item
+	 * @param selected true to check the item
+	 */
+	public void setSelected(int index, boolean selected) {
+		if (index < 0 || index >= size || this.selected.get(index) == selected) {
+			return;
+		}
+		this.selected.set(index, selected);
+		count += selected ? 1 : -1;
+		fireValueChanged(index, index);
+	}
+
+	/**
+	 * Checks or unchecks the items between from, inclusive, and to, exclusive.
+	 *
+	 * @param from     the index of the first item
+	 * @param to       the index after the last item
+	 * @param selected true to check the items
+	 */
+	public void setSelected(int from, int to, boolean selected) {
+		from = Math.max(0, from);
+		to = Math.min(size, to);
+		if (from >= to) {
+			return;
+		}
+		this.selected.set(from, to, selected);
+		updateCount(from, to - 1);
+	}
+
+	/**
+	 * Checks all the items.
+	 */
+	public void selectAll() {
+		setSelected(0, size, true);
+	}
+
+	/**
+	 * Unchecks all the items.
+	 */
+	public void clearSelection() {
+		if (count > 0) {
+			int first = selected.nextSetBit(0);
+			int last = selected.length() - 1;
+			selected.clear();
+			updateCount(first, last);
+		}
+	}
+
+	/**
+	 * Checks the unchecked items and unchecks the checked ones.
+	 */
+	public void invertSelection() {
+		if (size > 0) {
+			selected.flip(0, size);
+			count = size - count;
+			fireValueChanged(0, size - 1);
+		}
+	}
+
+	/**
+	 * Returns the index of the first checked item at or after the given index.
+	 *
+	 * @param from the index to start from
+	 * @return the index of the checked item, or -1 if there is none
+	 */
+	public int nextSelectedIndex(int from) {
+		return selected.nextSetBit(from);
+	}
+
+	/**
+	 * Returns the indexes of the checked items, in increasing order.
+	 *
+	 * @return a stream of the checked indexes
+	 */
+	public IntStream selectedIndices() {
+		return selected.stream();
+	}
+
+	/**
+	 * Adds a listener notified when items are checked or unchecked.
+	 *
+	 * @param l the listener
+	 */
+	public void addListSelectionListener(ListSelectionListener l) {
+		listeners.add(ListSelectionListener.class, l);
+	}
+
+	/**
+	 * Removes a listener added with addListSelectionListener.
+	 *
+	 * @param l the listener
+	 */
+	public void removeListSelectionListener(ListSelectionListener l) {
+		listeners.remove(ListSelectionListener.class, l);
+	}
+
+	/**
+	 * Empties the model and sets its size.
+	 *
+	 * @param size the number of items
+	 */
+	void reset(int size) {
+		selected.clear();
+		this.size = size;
+		count = 0;
+	}
+
+	/**
+	 * Makes room for items inserted at the given index, unchecked.
+	 *
+	 * @param index  the index of the first inserted item
+	 * @param length the number of inserted items
+	 */
+	void insert(int index, int length) {
+		BitSet tail = selected.get(index, Math.max(index, size));
+		selected.clear(index, Math.max(index, size));
+		for (int i = tail.nextSetBit(0); i >= 0; i = tail.nextSetBit(i + 1)) {
+			selected.set(index + length + i);
+		}
+		size += length;
+	}
+
+	/**
+	 * Removes the items between from, inclusive, and to, exclusive.
+	 *
+	 * @param from the index of the first removed item
+	 * @param to   the index after the last removed item
+	 */
+	void remove(int from, int to) {
+		BitSet tail = selected.get(to, Math.max(to, size));
+		selected.clear(from, Math.max(from, size));
+		for (int i = tail.nextSetBit(0); i >= 0; i = tail.nextSetBit(i + 1)) {
+			selected.set(from + i);
+		}
+		size -= to - from;
+		count = selected.cardinality();
+	}
+
+	/**
+	 * Counts the checked items after setting or clearing a range, and notifies
+	 * the listeners if the count changed.
+	 */
+	private void updateCount(int first, int last) {
+		int previous = count;
+		count = selected.cardinality();
+		if (count != previous) {
+			fireValueChanged(first, last);
+		}
+	}
+
+	private void fireValueChanged(int first, int last) {
+		ListSelectionEvent event = null;
+		for (ListSelectionListener l : listeners.getListeners(ListSelectionListener.class)) {
+			if (event == null) {
+				event = new ListSelectionEvent(this, first, last, false);
+			}
+			l.valueChanged(event);
+		}
+	}
+}
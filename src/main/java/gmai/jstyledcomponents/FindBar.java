@@ -0,0 +1,153 @@
+package gmai.jstyledcomponents;
+
+import java.awt.event.ActionEvent;
+import java.awt.event.InputEvent;
+import java.awt.event.KeyEvent;
+
+import javax.swing.AbstractAction;
+import javax.swing.Box;
+import javax.swing.JButton;
+import javax.swing.JLabel;
+import javax.swing.JTextField;
+import javax.swing.JToolBar;
+import javax.swing.KeyStroke;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+
+/**
+ * The find bar of a JPromptProcess. It searches the output through the index
+ * of its ProcessLog, moves to the next or previous match, or to the first error,
+ * and shows the number of errors and warnings. Typing searches from the current
+ * match.
+ */
+class FindBar extends JToolBar {
+
+	private final ProcessLog output;
+	private final JTextField field = new JTextField(25);
+	private final JLabel matchLabel = new JLabel();
+	private final JLabel countLabel = new JLabel();
+
+	private int matchLine = -1;
+	private int matchColumn;
+
+	/**
+	 * Constructs a find bar searching the given output.
+	 *
+	 * @param output the output to search
+	 */
+	FindBar(ProcessLog output) {
+		this.output = output;
+		setRollover(true);
+		setFloatable(false);
+
+		field.setMaximumSize(field.getPreferredSize());
+		field.addActionListener(e -> find(true, false));
+		field.getInputMap().put(KeyStroke.getKeyStroke(KeyEvent.VK_ENTER, InputEvent.SHIFT_DOWN_MASK), "previous");
+		field.getActionMap().put("previous", new AbstractAction() {
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				find(false, false);
+			}
+		});
+		field.getDocument().addDocumentListener(new DocumentListener() {
+			@Override
+			public void insertUpdate(DocumentEvent e) {
+				find(true, true);
+			}
+
+			@Override
+			public void removeUpdate(DocumentEvent e) {
+				find(true, true);
+			}
+
+			@Override
+			public void changedUpdate(DocumentEvent e) {
+			}
+		});
+
+		JButton previousButton = new JButton("  Previous  ");
+		previousButton.addActionListener(e -> find(false, false));
+		JButton nextButton = new JButton("  Next  ");
+		nextButton.addActionListener(e -> find(true, false));
+		JButton errorButton = new JButton("  First error  ");
+		errorButton.addActionListener(e -> firstError());
+
+		add(Box.createHorizontalStrut(10));
+		add(new JLabel("Find: "));
+		add(field);
+		add(previousButton);
+		add(nextButton);
+		add(Box.createHorizontalStrut(10));
+		add(matchLabel);
+		add(Box.createHorizontalGlue());
+		add(countLabel);
+		add(errorButton);
+		add(Box.createHorizontalStrut(10));
+	}
+
+	/**
+	 * Moves the focus to the search field.
+	 */
+	void focusField() {
+		field.requestFocusInWindow();
+		field.selectAll();
+	}
+
+	/**
+	 * Updates the number of errors and warnings. Must be called on the EDT.
+	 */
+	void refresh() {
+		OutputIndex index = output.getIndex();
+		countLabel.setText(index.getErrorCount() + " errors, " + index.getWarningCount() + " warnings  ");
+	}
+
+	/**
+	 * Moves to the next or previous match, starting again from the other end of
+	 * the output if there is none.
+	 *
+	 * @param forward true to search towards the end
+	 * @param current true to accept a match at the current position
+	 */
+	private void find(boolean forward, boolean current) {
+		String query = field.getText();
+		if (query.isEmpty()) {
+			matchLabel.setText("");
+			return;
+		}
+
+		long match = -1;
+		if (matchLine >= 0) {
+			int column = current ? matchColumn : matchColumn + (forward ? 1 : -1);
+			match = output.find(query, matchLine, column, forward);
+		}
+		if (match < 0) {
+			match = output.find(query, forward ? -1 : Integer.MAX_VALUE, 0, forward);
+		}
+
+		if (match < 0) {
+			matchLabel.setText("Not found");
+			return;
+		}
+		matchLabel.setText("");
+		select((int) (match >>> 32), (int) match, query.length());
+	}
+
+	/**
+	 * Moves to the first error still displayed.
+	 */
+	private void firstError() {
+		int line = output.getIndex().nextError(output.getFirstLine());
+		if (line < 0 || line >= output.getEndLine()) {
+			matchLabel.setText("No error");
+			return;
+		}
+		matchLabel.setText("");
+		select(line, 0, output.readLines(line, line + 1)[0].length());
+	}
+
+	private void select(int line, int column, int length) {
+		matchLine = line;
+		matchColumn = column;
+		output.select(line, column, length);
+	}
+}
@@ -1,22 +1,45 @@
 package gmai.jstyledcomponents;
 
-import static gmai.jstyledcomponents.util.ImageUtil.getImage;
+import static gmai.jstyledcomponents.util.ImageUtil.decodeAsync;
+import static gmai.jstyledcomponents.util.ImageUtil.resizeAsync;
 
 import java.awt.BorderLayout;
 import java.awt.Dimension;
 import java.awt.Graphics;
+import java.awt.image.BufferedImage;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
 
 import javax.swing.JPanel;
+import javax.swing.SwingUtilities;
 
 /**
  * The JBackground class extends JPanel and provides a background image for a
  * JPanel. The background image is specified by the imagePath parameter in the
- * constructor. The panelDimension parameter specifies the size of the JPanel.
+ * constructor. The panelDimension parameter specifies the preferred size of the
+ * JPanel. The image is decoded once in background, subsampled for the size of
+ * the panel, and the panel stays blank until it is ready. The decoded image is
+ * kept by the panel, and rescaled in background when the panel is resized. The
+ * previous image is stretched until the image of the new size is ready. The
+ * images of the panel aren't put in the image cache, so resizing it doesn't
+ * evict the cached icons.
  */
 public class JBackground extends JPanel {
 
 	private String imagePath;
-	private Dimension panelDimension;
+
+	/**
+	 * The decoded image, and the panel size it was subsampled for. It's decoded
+	 * again when the panel becomes more than twice as large.
+	 */
+	private BufferedImage sourceImage;
+	private int sourceWidth;
+	private int sourceHeight;
+
+	private BufferedImage scaledImage;
+	private transient CompletableFuture<BufferedImage> loading;
+	private int loadingWidth;
+	private int loadingHeight;
 
 	/**
 	 * Constructs a JBackground object with the specified imagePath and
@@ -27,12 +50,33 @@ public class JBackground extends JPanel {
 	 */
 	public JBackground(String imagePath, Dimension dimension) {
 		this.imagePath = imagePath;
-		this.panelDimension = dimension;
 
 		setPreferredSize(dimension);
 		setLayout(new BorderLayout());
 	}
 
+	/**
+	 * Sets the path to the background image and repaints the panel.
+	 * 
+	 * @param imagePath the path to the background image
+	 */
+	public void setImagePath(String imagePath) {
+		this.imagePath = imagePath;
+		this.sourceImage = null;
+		this.scaledImage = null;
+		this.loading = null;
+		repaint();
+	}
+
+	/**
+	 * Returns the path to the background image.
+	 * 
+	 * @return the path to the background image
+	 */
+	public String getImagePath() {
+		return imagePath;
+	}
+
 	/**
 	 * Overrides the paintComponent method to draw the background image.
 	 * 
@@ -42,9 +86,84 @@ public class JBackground extends JPanel {
 	public void paintComponent(Graphics g) {
 		super.paintComponent(g);
 		final int width, height, x = 0, y = 0;
-		width = (int) panelDimension.getWidth();
-		height = (int) panelDimension.getHeight();
+		width = getWidth();
+		height = getHeight();
+
+		BufferedImage img = getScaledImage(width, height);
+		if (img != null) {
+			g.drawImage(img, x, y, width, height, null);
+		}
+	}
+
+	/**
+	 * Returns the background image scaled to the given size, loading it if the
+	 * size changed. Only one load runs at a time, the size is checked again when
+	 * it completes.
+	 * 
+	 * @param width  the width of the panel
+	 * @param height the height of the panel
+	 * @return the scaled image, of another size while the image of this size is
+	 *         loading, or null if there is nothing to draw
+	 */
+	private BufferedImage getScaledImage(int width, int height) {
+		if (width <= 0 || height <= 0) {
+			return null;
+		}
+		if (scaledImage != null && scaledImage.getWidth() == width && scaledImage.getHeight() == height) {
+			return scaledImage;
+		}
+		// A failed load is not retried for the same size
+		boolean sameSize = loadingWidth == width && loadingHeight == height;
+		if (loading == null || loading.isDone() && !sameSize) {
+			loadImage(width, height);
+		}
+		return scaledImage;
+	}
+
+	/**
+	 * Starts loading the background image at the given size. The image is
+	 * decoded first if the panel has no decoded image large enough, and the
+	 * panel is repainted to scale it. Otherwise the decoded image is scaled. Both
+	 * run on the ImageUtil loader threads, and the panel is repainted when the
+	 * image is ready.
+	 * 
+	 * @param width  the width of the panel
+	 * @param height the height of the panel
+	 */
+	private void loadImage(int width, int height) {
+		String path = imagePath;
+		loadingWidth = width;
+		loadingHeight = height;
+
+		if (sourceImage == null || width > sourceWidth * 2 || height > sourceHeight * 2) {
+			CompletableFuture<BufferedImage> future = decodeAsync(path, width, height);
+			loading = future;
+			future.thenAcceptAsync(decoded -> {
+				// Ignore the image if the path changed while loading
+				if (!Objects.equals(path, imagePath)) {
+					return;
+				}
+				if (decoded != null) {
+					sourceImage = decoded;
+					sourceWidth = width;
+					sourceHeight = height;
+					// Let the next paint scale it
+					if (loading == future) {
+						loading = null;
+					}
+				}
+				repaint();
+			}, SwingUtilities::invokeLater);
+			return;
+		}
 
-		g.drawImage(getImage(imagePath, width, height), x, y, null);
+		loading = resizeAsync(sourceImage, width, height);
+		loading.thenAcceptAsync(resized -> {
+			if (Objects.equals(path, imagePath)) {
+				scaledImage = resized;
+				// Repainted even if the panel was resized meanwhile, to scale again
+				repaint();
+			}
+		}, SwingUtilities::invokeLater);
 	}
-}
\ No newline at end of file
+}
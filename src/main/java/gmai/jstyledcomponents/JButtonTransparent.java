@@ -3,17 +3,20 @@
  */
 package gmai.jstyledcomponents;
 
-import static gmai.jstyledcomponents.util.ImageUtil.getImage;
+import static gmai.jstyledcomponents.util.ImageUtil.getImageAsync;
 
 import java.awt.Color;
+import java.awt.Graphics;
 import java.awt.event.ActionListener;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseListener;
 import java.awt.event.MouseMotionListener;
+import java.awt.image.BufferedImage;
 
 import javax.swing.Icon;
 import javax.swing.ImageIcon;
 import javax.swing.JButton;
+import javax.swing.SwingUtilities;
 
 /**
  * A transparent JButton with custom styling and mouse events.
@@ -28,24 +31,34 @@ public class JButtonTransparent extends JButton implements MouseListener, MouseM
 	private static final int WIDTH = 50;
 	private static final int HEIGHT = 50;
 
+	// Blank icon displayed while the button icon is loading
+	private static final Icon PLACEHOLDER = new ImageIcon(new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_ARGB));
+
 	private JCard parent; // The parent JCard component
+	private boolean hovered; // Whether the mouse is over the button
 
 	/**
 	 * Constructs a new JButtonTransparent with the given text, image path, and
-	 * parent JCard.
+	 * parent JCard. The icon is loaded in background, a blank icon of the same
+	 * size is displayed until it is ready.
 	 * 
 	 * @param text   the text to display on the button
 	 * @param path   the path to the image to use as the button icon
 	 * @param parent the parent JCard component
 	 */
 	public JButtonTransparent(String text, String path, JCard parent) {
-		Icon icon = new ImageIcon(getImage(path, WIDTH, HEIGHT)); // Create the button icon
 		this.parent = parent;
 
 		setText(text);
-		setIcon(icon);
+		setIcon(PLACEHOLDER);
+		getImageAsync(path, WIDTH, HEIGHT).thenAcceptAsync(img -> {
+			if (img != null) {
+				setIcon(new ImageIcon(img)); // Create the button icon
+			}
+		}, SwingUtilities::invokeLater);
 		addActionListener((ActionListener) this.parent); // Add the parent as an ActionListener
 		addMouseListener(this); // Add this button as a MouseListener
+		addMouseMotionListener(this); // And as a MouseMotionListener
 		setHorizontalTextPosition(JButton.CENTER);
 		setVerticalTextPosition(JButton.BOTTOM);
 		setForeground(Color.WHITE);
@@ -58,50 +71,77 @@ public class JButtonTransparent extends JButton implements MouseListener, MouseM
 	}
 
 	/**
-	 * Sets the opacity of the button and repaints the parent JCard.
+	 * Sets whether the button is highlighted as hovered. The button is only
+	 * repainted when the state changes, the layout doesn't depend on it.
+	 * 
+	 * @param hovered true if the button should be highlighted, false if it should
+	 *                be transparent
+	 */
+	private void setHovered(boolean hovered) {
+		if (this.hovered != hovered) {
+			this.hovered = hovered;
+			repaint();
+		}
+	}
+
+	/**
+	 * Returns whether the button is highlighted as hovered.
 	 * 
-	 * @param opaque true if the button should be opaque, false if it should be
-	 *               transparent
+	 * @return true if the mouse is over the button
 	 */
-	private void setButtonOpacity(boolean opaque) {
-		setOpaque(opaque);
-		parent.revalidate();
-		parent.repaint();
+	public boolean isHovered() {
+		return hovered;
+	}
+
+	/**
+	 * Fills the button with its translucent background when it's hovered. The
+	 * button stays non-opaque, so the parent is painted under it and repainting
+	 * the button alone is enough.
+	 * 
+	 * @param g the Graphics object used for painting
+	 */
+	@Override
+	protected void paintComponent(Graphics g) {
+		if (hovered) {
+			g.setColor(getBackground());
+			g.fillRect(0, 0, getWidth(), getHeight());
+		}
+		super.paintComponent(g);
 	}
 
 	// MouseListener and MouseMotionListener methods
 	@Override
 	public void mouseClicked(MouseEvent e) {
-		setButtonOpacity(false);
+		setHovered(false);
 	}
 
 	@Override
 	public void mousePressed(MouseEvent e) {
-		setButtonOpacity(false);
+		setHovered(false);
 	}
 
 	@Override
 	public void mouseReleased(MouseEvent e) {
-		setButtonOpacity(false);
+		setHovered(false);
 	}
 
 	@Override
 	public void mouseEntered(MouseEvent e) {
-		setButtonOpacity(true);
+		setHovered(true);
 	}
 
 	@Override
 	public void mouseExited(MouseEvent e) {
-		setButtonOpacity(false);
+		setHovered(false);
 	}
 
 	@Override
 	public void mouseDragged(MouseEvent e) {
-		setButtonOpacity(false);
+		setHovered(false);
 	}
 
 	@Override
 	public void mouseMoved(MouseEvent e) {
-		setButtonOpacity(true);
+		setHovered(true);
 	}
 }
\ No newline at end of file
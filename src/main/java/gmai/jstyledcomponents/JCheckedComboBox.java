@@ -7,12 +7,14 @@ import java.awt.Graphics2D;
 import java.awt.RenderingHints;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.awt.event.InputEvent;
 import java.awt.event.KeyEvent;
 import java.awt.image.BufferedImage;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.TreeMap;
 import java.util.stream.Collectors;
-import java.util.stream.IntStream;
 
 import javax.accessibility.Accessible;
 import javax.swing.AbstractAction;
@@ -25,16 +27,22 @@ import javax.swing.JComboBox;
 import javax.swing.JComponent;
 import javax.swing.JLabel;
 import javax.swing.JList;
+import javax.swing.JTextField;
 import javax.swing.KeyStroke;
 import javax.swing.ListCellRenderer;
-import javax.swing.ListModel;
+import javax.swing.event.ListDataEvent;
+import javax.swing.event.ListDataListener;
+import javax.swing.event.PopupMenuEvent;
+import javax.swing.event.PopupMenuListener;
 import javax.swing.plaf.basic.ComboPopup;
 
 /**
  * JCheckedComboBox is a custom JComboBox that allows users to select multiple
  * items using checkboxes. It extends the JComboBox class and uses a custom
  * ListCellRenderer to display checkboxes next to each item. The selected items
- * are displayed in the JComboBox as a comma-separated string.
+ * are displayed in the JComboBox as a comma-separated string. The checked
+ * items are held by a CheckedSelectionModel, which also provides the bulk
+ * operations. Typing while the popup is open filters its items.
  * 
  * @param <E> the type of CheckableItem used in the JCheckedComboBox
  */
@@ -44,27 +52,94 @@ public class JCheckedComboBox<E extends CheckableItem> extends JComboBox<E> {
 	private transient ActionListener listener;
 
 	/**
-	 * Default constructor for JCheckedComboBox. Sets the ITEMS_LIMIT to 0.
+	 * The maximum number of items that can be selected, 0 for no limit.
+	 */
+	private int limit;
+
+	/**
+	 * The separator used between selected items in the label.
+	 */
+	private String separator = ", ";
+
+	/**
+	 * The checked items, by index in the model.
+	 */
+	private CheckedSelectionModel selectionModel;
+
+	/**
+	 * Number of checked items of a PagedComboBoxModel whose texts are shown in
+	 * the combo box. Above it, only their number is shown.
+	 */
+	private static final int PAGED_SUMMARY_ITEMS = 3;
+
+	/**
+	 * The texts of the selected items in display order, with the number of
+	 * selected items having each text, updated on each toggle and rebuilt after a
+	 * bulk operation. Null for a PagedComboBoxModel, whose items aren't read.
+	 */
+	private transient TreeMap<String, Integer> selectedTexts;
+
+	/**
+	 * The text displayed in the combo box, or null when the selection changed
+	 * since it was built.
+	 */
+	private transient String summary;
+
+	/**
+	 * Keeps the selection model in line when items are added to or removed from
+	 * the model. Created with the selection model on the first setModel call,
+	 * made by the JComboBox constructor.
+	 */
+	private transient ListDataListener modelListener;
+
+	/**
+	 * The items shown in the popup, narrowed by the typed text.
+	 */
+	private transient CheckableItemFilter<E> filter;
+
+	/**
+	 * Displays the typed text at the top of the popup. The combo box keeps the
+	 * focus, so the field isn't focusable.
+	 */
+	private transient JTextField filterField;
+
+	/**
+	 * Whether the model is a PagedComboBoxModel, whose items are only loaded when
+	 * displayed.
+	 */
+	private boolean paged;
+
+	/**
+	 * Default constructor for JCheckedComboBox. Sets the limit to 0.
 	 */
 	protected JCheckedComboBox() {
 		super();
-		CCBVAR.ITEMS_LIMIT = 0;
 	}
 
 	/**
 	 * Constructor for JCheckedComboBox that takes an array of CheckableItems. Sets
-	 * the ITEMS_LIMIT to 0.
+	 * the limit to 0.
 	 * 
 	 * @param m an array of CheckableItems to be added to the JCheckedComboBox
 	 */
 	protected JCheckedComboBox(CheckableItem... m) {
 		super((ComboBoxModel<E>) new DefaultComboBoxModel<>(m));
-		CCBVAR.ITEMS_LIMIT = 0;
+	}
+
+	/**
+	 * Constructor for JCheckedComboBox that takes a model, such as a
+	 * PagedComboBoxModel loading its items when they are displayed. Sets the limit
+	 * to 0.
+	 * 
+	 * @param model the model providing the items
+	 */
+	protected JCheckedComboBox(ComboBoxModel<E> model) {
+		super(model);
 	}
 
 	/**
 	 * Constructor for JCheckedComboBox that takes an integer limit and an array of
-	 * CheckableItems. Sets the ITEMS_LIMIT to the given limit.
+	 * CheckableItems. Sets the limit to the given limit.
 	 * 
 	 * @param limit the maximum number of items that can be selected in the
 	 *              JCheckedComboBox
@@ -72,13 +147,13 @@ public class JCheckedComboBox<E extends CheckableItem> extends JComboBox<E> {
 	 */
 	protected JCheckedComboBox(Integer limit, CheckableItem... m) {
 		super((ComboBoxModel<E>) new DefaultComboBoxModel<>(m));
-		CCBVAR.ITEMS_LIMIT = limit;
+		this.limit = limit;
 	}
 
 	/**
 	 * Constructor for JCheckedComboBox that takes a separator string and an array
-	 * of CheckableItems. Sets the ITEM_SEPARATOR to the given separator string and
-	 * the ITEMS_LIMIT to 0.
+	 * of CheckableItems. Sets the separator to the given separator string and the
+	 * limit to 0.
 	 * 
 	 * @param separator the string used to separate selected items in the
 	 *                  JCheckedComboBox display
@@ -87,14 +162,13 @@ public class JCheckedComboBox<E extends CheckableItem> extends JComboBox<E> {
 	 */
 	protected JCheckedComboBox(String separator, CheckableItem... m) {
 		super((ComboBoxModel<E>) new DefaultComboBoxModel<>(m));
-		CCBVAR.ITEM_SEPARATOR = separator;
-		CCBVAR.ITEMS_LIMIT = 0;
+		this.separator = separator;
 	}
 
 	/**
 	 * Constructor for JCheckedComboBox that takes an integer limit, a separator
-	 * string, and an array of CheckableItems. Sets the ITEM_SEPARATOR to the given
-	 * separator string and the ITEMS_LIMIT to the given limit.
+	 * string, and an array of CheckableItems. Sets the separator to the given
+	 * separator string and the limit to the given limit.
 	 * 
 	 * @param limit     the maximum number of items that can be selected in the
 	 *                  JCheckedComboBox
@@ -105,8 +179,8 @@ public class JCheckedComboBox<E extends CheckableItem> extends JComboBox<E> {
 	 */
 	protected JCheckedComboBox(Integer limit, String separator, CheckableItem... m) {
 		super((ComboBoxModel<E>) new DefaultComboBoxModel<>(m));
-		CCBVAR.ITEM_SEPARATOR = separator;
-		CCBVAR.ITEMS_LIMIT = limit;
+		this.separator = separator;
+		this.limit = limit;
 	}
 
 	/**
@@ -123,182 +197,448 @@ public class JCheckedComboBox<E extends CheckableItem> extends JComboBox<E> {
 
 		listener = e -> {
 			if ((e.getModifiers() & AWTEvent.MOUSE_EVENT_MASK) != 0) {
-				updateItem(getSelectedIndex());
+				JList<E> list = getPopupList();
+				if (list != null) {
+					toggleRow(list);
+				} else {
+					updateItem(getSelectedIndex());
+				}
 				keepOpen = true;
 			}
 		};
 
-		setRenderer(new CheckBoxCellRenderer<>());
+		setRenderer(new CheckBoxCellRenderer<>(this));
 		addActionListener(listener);
 		getInputMap(JComponent.WHEN_FOCUSED).put(KeyStroke.getKeyStroke(KeyEvent.VK_SPACE, 0), "checkbox-select");
 		getActionMap().put("checkbox-select", new AbstractAction() {
 			@Override
 			public void actionPerformed(ActionEvent e) {
-				Accessible a = getAccessibleContext().getAccessibleChild(0);
-				if (a instanceof ComboPopup) {
-					updateItem(((ComboPopup) a).getList().getSelectedIndex());
+				JList<E> list = getPopupList();
+				if (list != null) {
+					toggleRow(list);
 				}
 			}
 		});
+		installFilter();
 	}
 
 	/**
-	 * Updates the selected state of the CheckableItem at the given index. If the
-	 * ITEMS_LIMIT has been reached, the selected state will not be changed.
-	 * 
-	 * @param index the index of the CheckableItem to update
+	 * Returns the list of the popup, or null before the UI is installed.
 	 */
-	protected void updateItem(int index) {
-		if (isPopupVisible()) {
-			E item = getItemAt(index);
-			if (CCBVAR.ITEMS_LIMIT == 0 || CCBVAR.ITEMS_LIMIT > CCBVAR.N_SELECTED_ITEMS
-					|| (CCBVAR.ITEMS_LIMIT == CCBVAR.N_SELECTED_ITEMS && item.isSelected())) {
-				item.setSelected(!item.isSelected());
-				setSelectedIndex(-1);
-				setSelectedItem(item);
+	@SuppressWarnings("unchecked")
+	private JList<E> getPopupList() {
+		if (getUI() != null) {
+			Accessible a = getUI().getAccessibleChild(this, 0);
+			if (a instanceof ComboPopup) {
+				return (JList<E>) (JList<?>) ((ComboPopup) a).getList();
 			}
 		}
+		return null;
+	}
+
+	/**
+	 * Shows the filtered items in the popup list, under the filter field. The
+	 * rows get the height of the first item, so the list doesn't measure all the
+	 * items after each keystroke.
+	 */
+	private void installFilter() {
+		JList<E> list = getPopupList();
+		if (list == null || filter == null) {
+			return;
+		}
+		Accessible popup = getUI().getAccessibleChild(this, 0);
+		if (popup instanceof JComponent) {
+			filterField = new JTextField(filter.getQuery());
+			filterField.setFocusable(false);
+			filterField.setEditable(false);
+			((JComponent) popup).add(filterField, 0);
+		}
+		list.setModel(filter);
+		list.setPrototypeCellValue(getItemCount() > 0 ? getItemAt(0) : null);
+	}
+
+	/**
+	 * Toggles the item of the selected row of the popup list, keeping the row
+	 * selected.
+	 */
+	private void toggleRow(JList<E> list) {
+		int row = list.getSelectedIndex();
+		updateItem(toModelIndex(list, row));
+		if (row >= 0 && list.getSelectedIndex() != row) {
+			list.setSelectedIndex(row);
+		}
 	}
 
 	/**
-	 * Sets the ITEMS_LIMIT to the given limit.
+	 * Returns the model index of a row of a list showing the items, which differs
+	 * from the row in the filtered popup list.
 	 * 
-	 * @param limit the maximum number of items that can be selected in the
-	 *              JCheckedComboBox
+	 * @param list the list showing the items
+	 * @param row  the row index
+	 * @return the index in the model, or -1 if the row is invalid
 	 */
-	public void setLimit(int limit) {
-		CCBVAR.ITEMS_LIMIT = limit;
+	int toModelIndex(JList<?> list, int row) {
+		return list.getModel() == filter ? filter.toModelIndex(row) : row;
 	}
 
 	/**
-	 * Returns a List of all CheckableItems that are currently selected in the
-	 * JCheckedComboBox.
+	 * Returns the text filtering the items of the popup.
 	 * 
-	 * @return a List of all selected CheckableItems
+	 * @return the filter text, empty if the popup shows all the items
 	 */
-	public List<CheckableItem> getAllSelectedItems() {
-		return IntStream.range(0, getModel().getSize()).mapToObj(getModel()::getElementAt)
-				.filter(CheckableItem::isSelected).collect(Collectors.toList());
+	public String getFilterText() {
+		return filter.getQuery();
 	}
 
 	/**
-	 * Causes the combo box to display its popup window.
+	 * Shows only the items of the popup having a word starting with the given
+	 * text, ignoring the case. The checked items stay checked when they are
+	 * hidden. The filter is removed when the popup closes.
 	 * 
-	 * @see #setPopupVisible
+	 * @param text the filter text, or an empty string to show all the items
+	 */
+	public void setFilterText(String text) {
+		filter.setQuery(text);
+		if (filterField != null) {
+			filterField.setText(text);
+		}
+		JList<E> list = getPopupList();
+		if (list != null && filter.getSize() > 0) {
+			list.setSelectedIndex(0);
+			list.ensureIndexIsVisible(0);
+		}
+	}
+
+	/**
+	 * Adds the typed characters to the filter while the popup is open, and
+	 * removes the last one on backspace. The space still checks the selected
+	 * item, so it isn't added to the filter.
+	 * 
+	 * @param e the key event
 	 */
 	@Override
-	public void setPopupVisible(boolean v) {
-		if (keepOpen) {
-			keepOpen = false;
-		} else {
-			super.setPopupVisible(v);
+	public void processKeyEvent(KeyEvent e) {
+		if (isPopupVisible() && !paged && (e.getModifiersEx()
+				& (InputEvent.CTRL_DOWN_MASK | InputEvent.ALT_DOWN_MASK | InputEvent.META_DOWN_MASK)) == 0) {
+			String text = filter.getQuery();
+			char c = e.getKeyChar();
+			if (e.getID() == KeyEvent.KEY_TYPED && c != ' ' && c != KeyEvent.CHAR_UNDEFINED
+					&& !Character.isISOControl(c)) {
+				setFilterText(text + c);
+				e.consume();
+				return;
+			}
+			if (e.getID() == KeyEvent.KEY_PRESSED && e.getKeyCode() == KeyEvent.VK_BACK_SPACE && !text.isEmpty()) {
+				setFilterText(text.substring(0, text.length() - 1));
+				e.consume();
+				return;
+			}
 		}
+		super.processKeyEvent(e);
 	}
-}
 
-/**
- * Represents an item that can be checked or unchecked.
- */
-class CheckableItem {
 	/**
-	 * The text associated with the item.
+	 * Sets the model of the combo box. The items of the model that are selected
+	 * are checked in the selection model, except for a PagedComboBoxModel, whose
+	 * items aren't loaded. Its items start unchecked and aren't read before they
+	 * are displayed or checked.
+	 * 
+	 * @param aModel the ComboBoxModel that provides the displayed list of items
 	 */
-	public final String text;
+	@Override
+	public void setModel(ComboBoxModel<E> aModel) {
+		if (modelListener == null) {
+			selectionModel = new CheckedSelectionModel();
+			selectionModel.addListSelectionListener(e -> selectionChanged(e.getFirstIndex(), e.getLastIndex()));
+			modelListener = new ListDataListener() {
+				@Override
+				public void intervalAdded(ListDataEvent e) {
+					selectionModel.insert(e.getIndex0(), e.getIndex1() - e.getIndex0() + 1);
+					readSelection(e.getIndex0(), e.getIndex1() + 1);
+				}
+
+				@Override
+				public void intervalRemoved(ListDataEvent e) {
+					selectionModel.remove(e.getIndex0(), e.getIndex1() + 1);
+					collectTexts();
+				}
+
+				@Override
+				public void contentsChanged(ListDataEvent e) {
+					// A change of the selected item has no index
+					if (e.getIndex0() >= 0) {
+						collectTexts();
+					}
+				}
+			};
+			filter = new CheckableItemFilter<>();
+			addPopupMenuListener(new PopupMenuListener() {
+				@Override
+				public void popupMenuWillBecomeVisible(PopupMenuEvent e) {
+				}
+
+				@Override
+				public void popupMenuWillBecomeInvisible(PopupMenuEvent e) {
+					if (!filter.getQuery().isEmpty()) {
+						setFilterText("");
+					}
+				}
+
+				@Override
+				public void popupMenuCanceled(PopupMenuEvent e) {
+				}
+			});
+		}
+		if (getModel() != null) {
+			getModel().removeListDataListener(modelListener);
+		}
+		super.setModel(aModel);
+		aModel.addListDataListener(modelListener);
+
+		boolean wasPaged = paged;
+		paged = aModel instanceof PagedComboBoxModel;
+		if (paged) {
+			// The UI would otherwise read all the items, to size the combo box and to
+			// select an item from a typed key
+			setKeySelectionManager((key, model) -> -1);
+			if (getPrototypeDisplayValue() == null && aModel.getSize() > 0) {
+				setPrototypeDisplayValue(aModel.getElementAt(0));
+			}
+		} else if (wasPaged) {
+			setKeySelectionManager(createDefaultKeySelectionManager());
+		}
+
+		selectionModel.reset(aModel.getSize());
+		collectTexts();
+		readSelection(0, aModel.getSize());
+
+		filter.setSource(aModel);
+		if (filterField != null) {
+			filterField.setText("");
+		}
+		// The popup shows the new model, the filter must replace it again
+		JList<E> list = getPopupList();
+		if (list != null) {
+			list.setModel(filter);
+			list.setPrototypeCellValue(aModel.getSize() > 0 ? aModel.getElementAt(0) : null);
+		}
+	}
 
 	/**
-	 * Whether the item is currently selected or not.
+	 * Returns the model of the checked items.
+	 * 
+	 * @return the selection model
 	 */
-	private boolean selected;
+	public CheckedSelectionModel getSelectionModel() {
+		return selectionModel;
+	}
 
 	/**
-	 * Additional data associated with the item.
+	 * Checks the items of the model that are selected, between from, inclusive,
+	 * and to, exclusive.
 	 */
-	public final Object data;
+	private void readSelection(int from, int to) {
+		if (paged) {
+			return;
+		}
+		for (int i = from; i < to; i++) {
+			if (getItemAt(i).isSelected()) {
+				selectionModel.setSelected(i, true);
+			}
+		}
+	}
 
 	/**
-	 * Constructs a new CheckableItem with the given text.
+	 * Collects the texts of the checked items, after a bulk operation or a change
+	 * of the model.
+	 */
+	private void collectTexts() {
+		summary = null;
+		if (paged) {
+			selectedTexts = null;
+			return;
+		}
+		selectedTexts = new TreeMap<>();
+		for (int i = selectionModel.nextSelectedIndex(0); i >= 0; i = selectionModel.nextSelectedIndex(i + 1)) {
+			selectedTexts.merge(Objects.toString(getItemAt(i), ""), 1, Integer::sum);
+		}
+	}
+
+	/**
+	 * Updates the selected state of the changed items and the texts of the
+	 * checked items when the selection model changes, the texts in place for a
+	 * single item. The items of a PagedComboBoxModel aren't read.
+	 */
+	private void selectionChanged(int first, int last) {
+		if (paged) {
+			// The summary reads the texts of a few checked items only
+			summary = null;
+			repaint();
+			return;
+		}
+		for (int i = first; i <= last; i++) {
+			E item = getItemAt(i);
+			if (item != null) {
+				item.setSelected(selectionModel.isSelected(i));
+			}
+		}
+		if (first != last) {
+			collectTexts();
+		} else {
+			String text = Objects.toString(getItemAt(first), "");
+			if (selectionModel.isSelected(first)) {
+				selectedTexts.merge(text, 1, Integer::sum);
+			} else {
+				selectedTexts.computeIfPresent(text, (t, n) -> n > 1 ? n - 1 : null);
+			}
+			summary = null;
+		}
+		repaint();
+	}
+
+	/**
+	 * Returns the text displayed in the combo box, the sorted texts of the
+	 * selected items joined by the separator. For a PagedComboBoxModel, the texts
+	 * are in the order of the items and only read for a few selected items,
+	 * otherwise the text is their number. It's only built again after the
+	 * selection changes.
 	 * 
-	 * @param text The text associated with the item.
+	 * @return the text of the selected items, empty if there is none
 	 */
-	protected CheckableItem(String text) {
-		this.text = text;
-		this.selected = false;
-		this.data = null;
+	public String getSummary() {
+		if (summary == null && paged) {
+			int count = selectionModel.getSelectedCount();
+			if (count > PAGED_SUMMARY_ITEMS) {
+				summary = count + " selected";
+			} else {
+				summary = selectionModel.selectedIndices().mapToObj(i -> Objects.toString(getItemAt(i), ""))
+						.collect(Collectors.joining(separator));
+			}
+		} else if (summary == null) {
+			StringBuilder sb = new StringBuilder();
+			boolean first = true;
+			for (Map.Entry<String, Integer> entry : selectedTexts.entrySet()) {
+				for (int i = 0; i < entry.getValue(); i++) {
+					if (!first) {
+						sb.append(separator);
+					}
+					sb.append(entry.getKey());
+					first = false;
+				}
+			}
+			summary = sb.toString();
+		}
+		return summary;
 	}
 
 	/**
-	 * Constructs a new CheckableItem with the given text and selection status.
+	 * Updates the selected state of the CheckableItem at the given index. If the
+	 * limit has been reached, the selected state will not be changed.
 	 * 
-	 * @param text     The text associated with the item.
-	 * @param selected Whether the item is initially selected or not.
+	 * @param index the index of the CheckableItem to update
 	 */
-	protected CheckableItem(String text, boolean selected) {
-		this.text = text;
-		this.selected = selected;
-		this.data = null;
+	protected void updateItem(int index) {
+		if (isPopupVisible() && index >= 0) {
+			E item = getItemAt(index);
+			boolean checked = selectionModel.isSelected(index);
+			if (limit == 0 || selectionModel.getSelectedCount() < limit || checked) {
+				selectionModel.setSelected(index, !checked);
+				// Selected through the model, JComboBox would look for the item in all the
+				// items
+				getModel().setSelectedItem(null);
+				getModel().setSelectedItem(item);
+			}
+		}
+	}
+
+	/**
+	 * Returns the index of the selected item. For a PagedComboBoxModel, the item
+	 * is only looked for in the loaded pages.
+	 * 
+	 * @return the index of the selected item, or -1 if there is none
+	 */
+	@Override
+	public int getSelectedIndex() {
+		if (paged) {
+			return ((PagedComboBoxModel<?>) getModel()).getSelectedIndex();
+		}
+		return super.getSelectedIndex();
+	}
+
+	/**
+	 * Sets the limit to the given limit.
+	 * 
+	 * @param limit the maximum number of items that can be selected in the
+	 *              JCheckedComboBox
+	 */
+	public void setLimit(int limit) {
+		this.limit = limit;
 	}
 
 	/**
-	 * Constructs a new CheckableItem with the given text and additional data.
+	 * Returns the maximum number of items that can be selected.
 	 * 
-	 * @param text The text associated with the item.
-	 * @param data Additional data associated with the item.
+	 * @return the limit, or 0 if there is no limit
 	 */
-	protected CheckableItem(String text, Object data) {
-		this.text = text;
-		this.selected = false;
-		this.data = data;
+	public int getLimit() {
+		return limit;
 	}
 
 	/**
-	 * Constructs a new CheckableItem with the given text, additional data, and
-	 * selection status.
+	 * Sets the separator used between selected items in the JCheckedComboBox
+	 * display.
 	 * 
-	 * @param text     The text associated with the item.
-	 * @param data     Additional data associated with the item.
-	 * @param selected Whether the item is initially selected or not.
+	 * @param separator the separator string
 	 */
-	protected CheckableItem(String text, Object data, boolean selected) {
-		this.text = text;
-		this.selected = selected;
-		this.data = data;
+	public void setSeparator(String separator) {
+		this.separator = separator;
+		summary = null;
+		repaint();
 	}
 
 	/**
-	 * Returns whether the item is currently selected or not.
+	 * Returns the separator used between selected items in the JCheckedComboBox
+	 * display.
 	 * 
-	 * @return Whether the item is currently selected or not.
+	 * @return the separator string
 	 */
-	public boolean isSelected() {
-		return selected;
+	public String getSeparator() {
+		return separator;
 	}
 
 	/**
-	 * Sets the selection status of the item.
+	 * Returns the number of selected items.
 	 * 
-	 * @param selected Whether the item should be selected or not.
+	 * @return the number of selected items
 	 */
-	public void setSelected(boolean selected) {
-		this.selected = selected;
+	public int getSelectedCount() {
+		return selectionModel.getSelectedCount();
 	}
 
 	/**
-	 * Returns the additional data associated with the item.
+	 * Returns a List of all CheckableItems that are currently selected in the
+	 * JCheckedComboBox. For a PagedComboBoxModel, this loads the pages of all the
+	 * selected items, the getSelectionModel() gives their indexes without loading
+	 * them.
 	 * 
-	 * @return The additional data associated with the item.
+	 * @return a List of all selected CheckableItems
 	 */
-	public Object getData() {
-		return data;
+	public List<CheckableItem> getAllSelectedItems() {
+		return selectionModel.selectedIndices().mapToObj(getModel()::getElementAt).collect(Collectors.toList());
 	}
 
 	/**
-	 * Returns the text associated with the item.
+	 * Causes the combo box to display its popup window.
 	 * 
-	 * @return The text associated with the item.
+	 * @see #setPopupVisible
 	 */
 	@Override
-	public String toString() {
-		return text;
+	public void setPopupVisible(boolean v) {
+		if (keepOpen) {
+			keepOpen = false;
+		} else {
+			super.setPopupVisible(v);
+		}
 	}
 }
 
@@ -319,6 +659,39 @@ class CheckBoxCellRenderer<E extends CheckableItem> implements ListCellRenderer<
 	 */
 	private final JCheckBox check = new JCheckBox(" ");
 
+	/**
+	 * The combo box whose items are rendered.
+	 */
+	private final JCheckedComboBox<E> comboBox;
+
+	/**
+	 * Number of icons kept by the renderer, a list only uses a few colors.
+	 */
+	private static final int ICON_CACHE_SIZE = 4;
+
+	/**
+	 * The RGB of the cached icons, and the icons.
+	 */
+	private final int[] iconColors = new int[ICON_CACHE_SIZE];
+	private final Icon[] icons = new Icon[ICON_CACHE_SIZE];
+	private int nextIcon;
+
+	/**
+	 * The RGB of the last classified color, and whether it's dark.
+	 */
+	private int darkColor;
+	private boolean dark;
+	private boolean darkKnown;
+
+	/**
+	 * Constructs a renderer for the items of the given combo box.
+	 * 
+	 * @param comboBox The combo box whose items are rendered.
+	 */
+	CheckBoxCellRenderer(JCheckedComboBox<E> comboBox) {
+		this.comboBox = comboBox;
+	}
+
 	/**
 	 * Renders the given CheckableItem as a checkbox in a JList.
 	 * 
@@ -335,27 +708,23 @@ class CheckBoxCellRenderer<E extends CheckableItem> implements ListCellRenderer<
 
 		// If this is the label for the selected items
 		if (index < 0) {
-			// If there is no item limit or the limit has not been reached
-			if (CCBVAR.ITEMS_LIMIT == 0 || CCBVAR.ITEMS_LIMIT >= CCBVAR.N_SELECTED_ITEMS) {
-				// Get the string representation of the selected items
-				String txt = getCheckedItemString(list.getModel());
-				// Set the label text to the selected items string or a space if there are no
-				// selected items
-				label.setText(txt.isEmpty() ? " " : txt);
-				// Update the number of selected items
-				CCBVAR.N_SELECTED_ITEMS = IntStream.range(0, list.getModel().getSize())
-						.mapToObj(list.getModel()::getElementAt).filter(CheckableItem::isSelected)
-						.collect(Collectors.toList()).size();
-			}
+			// Get the string representation of the selected items, cached by the combo box
+			String txt = comboBox.getSummary();
+			// Set the label text to the selected items string or a space if there are no
+			// selected items
+			label.setText(txt.isEmpty() ? " " : txt);
 			// Return the label
 			return label;
 		} else {
-			// Set the selected icon for the checkbox
+			// Set the selected icon for the checkbox, cached by color
 			check.setSelectedIcon(icon(list.getSelectionBackground()));
 
 			// Set the text and selection status of the checkbox
+			// The popup list may be filtered, its rows aren't the model indexes
+			int modelIndex = comboBox.toModelIndex(list, index);
+			boolean checked = modelIndex >= 0 && comboBox.getSelectionModel().isSelected(modelIndex);
 			check.setText(Objects.toString(value, ""));
-			check.setSelected(value.isSelected());
+			check.setSelected(checked);
 
 			// If the item is selected
 			if (isSelected) {
@@ -367,8 +736,8 @@ class CheckBoxCellRenderer<E extends CheckableItem> implements ListCellRenderer<
 				// Set the icon and background color for the checkbox based on its selection
 				// status and the list background color
 				check.setIcon(icon(list.getBackground()));
-				if (value.isSelected()) {
-					if (!isDark(list.getBackground()))
+				if (checked) {
+					if (!isDarkBackground(list.getBackground()))
 						check.setBackground(Color.LIGHT_GRAY);
 					else
 						check.setBackground(Color.DARK_GRAY);
@@ -383,6 +752,20 @@ class CheckBoxCellRenderer<E extends CheckableItem> implements ListCellRenderer<
 		}
 	}
 
+	/**
+	 * Returns whether the given color is considered "dark" or not, remembering
+	 * the result for the last color, which is the list background.
+	 */
+	private boolean isDarkBackground(Color color) {
+		int rgb = color.getRGB();
+		if (!darkKnown || rgb != darkColor) {
+			darkColor = rgb;
+			dark = isDark(color);
+			darkKnown = true;
+		}
+		return dark;
+	}
+
 	/**
 	 * Returns whether the given color is considered "dark" or not.
 	 * 
@@ -418,13 +801,34 @@ class CheckBoxCellRenderer<E extends CheckableItem> implements ListCellRenderer<
 		return Math.sqrt(a * a + b * b + c * c);
 	}
 
+	/**
+	 * Returns an icon filled with the given color. The icons are cached by color,
+	 * so rendering the cells doesn't create any.
+	 * 
+	 * @param filled The color to fill the icon with.
+	 * @return The icon.
+	 */
+	protected Icon icon(Color filled) {
+		int rgb = filled.getRGB();
+		for (int i = 0; i < ICON_CACHE_SIZE; i++) {
+			if (icons[i] != null && iconColors[i] == rgb) {
+				return icons[i];
+			}
+		}
+		Icon icon = createIcon(filled);
+		iconColors[nextIcon] = rgb;
+		icons[nextIcon] = icon;
+		nextIcon = (nextIcon + 1) % ICON_CACHE_SIZE;
+		return icon;
+	}
+
 	/**
 	 * Creates an icon filled with the given color.
 	 * 
 	 * @param filled The color to fill the icon with.
 	 * @return The created icon.
 	 */
-	protected Icon icon(Color filled) {
+	protected Icon createIcon(Color filled) {
 		BufferedImage img = new BufferedImage(10, 10, BufferedImage.TYPE_INT_ARGB);
 		Graphics2D g2d = img.createGraphics();
 		g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
@@ -433,35 +837,4 @@ class CheckBoxCellRenderer<E extends CheckableItem> implements ListCellRenderer<
 		g2d.dispose();
 		return new ImageIcon(img);
 	}
-
-	/**
-	 * Returns a string representation of the selected items in the given model.
-	 * 
-	 * @param model The model to get the selected items from.
-	 * @return A string representation of the selected items.
-	 */
-	private static <E extends CheckableItem> String getCheckedItemString(ListModel<E> model) {
-		return IntStream.range(0, model.getSize()).mapToObj(model::getElementAt).filter(CheckableItem::isSelected)
-				.map(Objects::toString).sorted().collect(Collectors.joining(CCBVAR.ITEM_SEPARATOR));
-	}
-}
-
-/**
- * Contains global variables used by the checkbox list.
- */
-class CCBVAR {
-	/**
-	 * The maximum number of items that can be selected.
-	 */
-	public static int ITEMS_LIMIT;
-
-	/**
-	 * The number of currently selected items.
-	 */
-	public static int N_SELECTED_ITEMS = 0;
-
-	/**
-	 * The separator used between selected items in the label.
-	 */
-	public static String ITEM_SEPARATOR = ", ";
 }
\ No newline at end of file
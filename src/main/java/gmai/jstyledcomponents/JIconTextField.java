@@ -1,24 +1,120 @@
 package gmai.jstyledcomponents;
 
+import java.awt.Dimension;
 import java.awt.Graphics;
 import java.awt.Insets;
+import java.awt.Point;
+import java.awt.event.ActionEvent;
+import java.awt.event.FocusAdapter;
+import java.awt.event.FocusEvent;
+import java.awt.event.HierarchyBoundsAdapter;
+import java.awt.event.HierarchyEvent;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
+import javax.swing.AbstractAction;
+import javax.swing.Action;
+import javax.swing.BorderFactory;
+import javax.swing.DefaultListCellRenderer;
 import javax.swing.Icon;
+import javax.swing.JComponent;
+import javax.swing.JList;
+import javax.swing.JScrollPane;
 import javax.swing.JTextField;
+import javax.swing.KeyStroke;
+import javax.swing.ListSelectionModel;
+import javax.swing.Popup;
+import javax.swing.PopupFactory;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
 import javax.swing.UIManager;
 import javax.swing.border.Border;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.text.Document;
 
 /**
  * A custom JTextField that allows an icon to be displayed on the left side of
  * the text field. The icon can be set and retrieved using the setIcon() and
  * getIcon() methods respectively. The text field's margin is adjusted to
  * accommodate the icon.
+ * <p>
+ * With a SuggestionProvider, the field shows suggestions for the typed text in
+ * a popup under the text. The provider is called on a background thread once
+ * the typing pauses, the results of the previous texts are ignored, and the
+ * recent successful results are cached.
  */
 public class JIconTextField extends JTextField {
 
+	/**
+	 * Provides the suggestions for a text.
+	 */
+	@FunctionalInterface
+	public interface SuggestionProvider {
+		/**
+		 * Returns the suggestions for the given text. Called on a background thread,
+		 * which is interrupted if the text changes before the method returns.
+		 *
+		 * @param text the text of the field
+		 * @return the suggestions, in the displayed order
+		 * @throws Exception if the suggestions can't be computed
+		 */
+		List<String> suggest(String text) throws Exception;
+	}
+
+	/**
+	 * The background threads calling the suggestion providers.
+	 */
+	private static final ExecutorService SUGGESTER = createSuggester(2);
+
+	/**
+	 * Number of texts whose suggestions are cached.
+	 */
+	private static final int CACHE_SIZE = 32;
+
+	/**
+	 * Maximum number of suggestions visible without scrolling.
+	 */
+	private static final int VISIBLE_SUGGESTIONS = 8;
+
 	private Icon icon;
 	private Insets dummyInsets;
 
+	private transient SuggestionProvider provider;
+	private int suggestionDelay = 250;
+	private transient Timer debounce;
+	private transient DocumentListener documentListener;
+
+	/**
+	 * The query in progress, and the number of the last query. A result is only
+	 * shown if no query was made or cancelled since.
+	 */
+	private transient Future<?> pending;
+	private int generation;
+
+	/**
+	 * The suggestions of the recent texts, the least recently used is dropped
+	 * first.
+	 */
+	private transient Map<String, List<String>> cache;
+
+	private transient List<String> suggestions = Collections.emptyList();
+	private transient JList<String> suggestionList;
+	private transient JScrollPane suggestionScroll;
+	private transient Popup popup;
+	private boolean accepting;
+
 	/**
 	 * Constructs a new JIconTextField with the specified text and number of
 	 * columns.
@@ -37,6 +133,24 @@ public class JIconTextField extends JTextField {
 		this.setText(text);
 	}
 
+	/**
+	 * Creates the executor of the suggestion queries. Its threads are daemons and
+	 * stop when idle.
+	 *
+	 * @param threads the maximum number of query threads
+	 * @return the executor
+	 */
+	private static ExecutorService createSuggester(int threads) {
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<>(), r -> {
+					Thread thread = new Thread(r, "JIconTextField-suggester");
+					thread.setDaemon(true);
+					return thread;
+				});
+		executor.allowCoreThreadTimeOut(true);
+		return executor;
+	}
+
 	/**
 	 * Sets the icon to be displayed on the left side of the text field.
 	 * 
@@ -55,6 +169,344 @@ public class JIconTextField extends JTextField {
 		return this.icon;
 	}
 
+	/**
+	 * Sets the provider of the suggestions shown while typing, and clears the
+	 * cached suggestions.
+	 *
+	 * @param provider the provider, or null to show no suggestions
+	 */
+	public void setSuggestionProvider(SuggestionProvider provider) {
+		this.provider = provider;
+		cancelQuery();
+		hideSuggestions();
+		if (provider != null && debounce == null) {
+			installSuggestions();
+		}
+		if (cache != null) {
+			cache.clear();
+		}
+	}
+
+	/**
+	 * Returns the provider of the suggestions.
+	 *
+	 * @return the provider, or null if there is none
+	 */
+	public SuggestionProvider getSuggestionProvider() {
+		return provider;
+	}
+
+	/**
+	 * Sets the time without typing after which the suggestions are queried.
+	 *
+	 * @param delay the delay in milliseconds
+	 */
+	public void setSuggestionDelay(int delay) {
+		this.suggestionDelay = delay;
+		if (debounce != null) {
+			debounce.setInitialDelay(delay);
+		}
+	}
+
+	/**
+	 * Returns the time without typing after which the suggestions are queried.
+	 *
+	 * @return the delay in milliseconds
+	 */
+	public int getSuggestionDelay() {
+		return suggestionDelay;
+	}
+
+	/**
+	 * Returns the suggestions for the current text, shown in the popup when the
+	 * field has the focus.
+	 *
+	 * @return the suggestions, empty if there is none
+	 */
+	public List<String> getSuggestions() {
+		return Collections.unmodifiableList(suggestions);
+	}
+
+	/**
+	 * Creates the timer, the popup list and the key bindings of the suggestions.
+	 */
+	private void installSuggestions() {
+		cache = new LinkedHashMap<String, List<String>>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, List<String>> eldest) {
+				return size() > CACHE_SIZE;
+			}
+		};
+
+		debounce = new Timer(suggestionDelay, e -> query());
+		debounce.setRepeats(false);
+
+		documentListener = new DocumentListener() {
+			@Override
+			public void insertUpdate(DocumentEvent e) {
+				textChanged();
+			}
+
+			@Override
+			public void removeUpdate(DocumentEvent e) {
+				textChanged();
+			}
+
+			@Override
+			public void changedUpdate(DocumentEvent e) {
+			}
+		};
+		getDocument().addDocumentListener(documentListener);
+		addPropertyChangeListener("document", e -> {
+			if (e.getOldValue() != null) {
+				((Document) e.getOldValue()).removeDocumentListener(documentListener);
+			}
+			if (e.getNewValue() != null) {
+				((Document) e.getNewValue()).addDocumentListener(documentListener);
+			}
+		});
+
+		suggestionList = new JList<>();
+		suggestionList.setFocusable(false);
+		suggestionList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+		suggestionList.addMouseListener(new MouseAdapter() {
+			@Override
+			public void mouseClicked(MouseEvent e) {
+				int index = suggestionList.locationToIndex(e.getPoint());
+				if (index >= 0) {
+					acceptSuggestion(suggestions.get(index));
+				}
+			}
+		});
+		suggestionList.addMouseMotionListener(new MouseAdapter() {
+			@Override
+			public void mouseMoved(MouseEvent e) {
+				suggestionList.setSelectedIndex(suggestionList.locationToIndex(e.getPoint()));
+			}
+		});
+		suggestionScroll = new JScrollPane(suggestionList);
+		suggestionScroll.setBorder(BorderFactory.createLineBorder(UIManager.getColor("Component.borderColor") != null
+				? UIManager.getColor("Component.borderColor")
+				: getForeground()));
+
+		addFocusListener(new FocusAdapter() {
+			@Override
+			public void focusLost(FocusEvent e) {
+				cancelQuery();
+				hideSuggestions();
+			}
+		});
+		addHierarchyBoundsListener(new HierarchyBoundsAdapter() {
+			@Override
+			public void ancestorMoved(HierarchyEvent e) {
+				hideSuggestions();
+			}
+		});
+
+		getInputMap(JComponent.WHEN_FOCUSED).put(KeyStroke.getKeyStroke(KeyEvent.VK_DOWN, 0), "suggestion-next");
+		getActionMap().put("suggestion-next", new SuggestionAction() {
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				moveSelection(1);
+			}
+		});
+		getInputMap(JComponent.WHEN_FOCUSED).put(KeyStroke.getKeyStroke(KeyEvent.VK_UP, 0), "suggestion-previous");
+		getActionMap().put("suggestion-previous", new SuggestionAction() {
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				moveSelection(-1);
+			}
+		});
+		getInputMap(JComponent.WHEN_FOCUSED).put(KeyStroke.getKeyStroke(KeyEvent.VK_ESCAPE, 0), "suggestion-hide");
+		getActionMap().put("suggestion-hide", new SuggestionAction() {
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				cancelQuery();
+				hideSuggestions();
+			}
+		});
+
+		// Enter accepts the selected suggestion, or notifies the action listeners
+		Action notify = getActionMap().get(JTextField.notifyAction);
+		getInputMap(JComponent.WHEN_FOCUSED).put(KeyStroke.getKeyStroke(KeyEvent.VK_ENTER, 0), "suggestion-accept");
+		getActionMap().put("suggestion-accept", new AbstractAction() {
+			@Override
+			public boolean isEnabled() {
+				return popup != null && suggestionList.getSelectedIndex() >= 0
+						|| notify != null && notify.isEnabled();
+			}
+
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				if (popup != null && suggestionList.getSelectedIndex() >= 0) {
+					acceptSuggestion(suggestionList.getSelectedValue());
+				} else if (notify != null) {
+					notify.actionPerformed(e);
+				}
+			}
+		});
+	}
+
+	/**
+	 * An action only enabled while the suggestions are shown, so the key is
+	 * otherwise handled as usual.
+	 */
+	private abstract class SuggestionAction extends AbstractAction {
+		@Override
+		public boolean isEnabled() {
+			return popup != null;
+		}
+	}
+
+	/**
+	 * Shows the cached suggestions of the new text, or queries them once the
+	 * typing pauses.
+	 */
+	private void textChanged() {
+		if (provider == null || accepting) {
+			return;
+		}
+		cancelQuery();
+		String text = getText();
+		List<String> cached = cache.get(text);
+		if (text.isEmpty() || cached != null) {
+			debounce.stop();
+			showSuggestions(cached != null ? cached : Collections.emptyList());
+		} else {
+			debounce.restart();
+		}
+	}
+
+	/**
+	 * Queries the suggestions of the current text on a background thread.
+	 */
+	private void query() {
+		String text = getText();
+		SuggestionProvider queried = provider;
+		if (queried == null || text.isEmpty()) {
+			return;
+		}
+		cancelQuery();
+		int query = generation;
+		pending = SUGGESTER.submit(() -> {
+			List<String> result;
+			try {
+				result = queried.suggest(text);
+				if (result == null) {
+					result = Collections.emptyList();
+				}
+			} catch (InterruptedException e) {
+				return;
+			} catch (Exception e) {
+				// A cancel interrupting a blocking call may surface as another exception
+				if (Thread.currentThread().isInterrupted()) {
+					return;
+				}
+				System.out.println("Error, " + e.getStackTrace()[0].getMethodName() + " : " + e);
+				result = null;
+			}
+			// A failed query isn't cached, so the text is queried again
+			List<String> found = result != null ? new ArrayList<>(result) : null;
+			SwingUtilities.invokeLater(() -> {
+				if (queried != provider) {
+					return;
+				}
+				if (found != null) {
+					cache.put(text, found);
+				}
+				// A newer text or a cancel makes the result stale
+				if (query == generation) {
+					pending = null;
+					showSuggestions(found != null ? found : Collections.emptyList());
+				}
+			});
+		});
+	}
+
+	/**
+	 * Cancels the query in progress, its result won't be shown.
+	 */
+	private void cancelQuery() {
+		generation++;
+		if (pending != null) {
+			pending.cancel(true);
+			pending = null;
+		}
+	}
+
+	/**
+	 * Shows the given suggestions under the text, or hides the popup if there is
+	 * none or the field doesn't have the focus.
+	 */
+	private void showSuggestions(List<String> found) {
+		suggestions = found;
+		hideSuggestions();
+		if (found.isEmpty() || !isShowing() || !isFocusOwner()) {
+			return;
+		}
+
+		suggestionList.setListData(found.toArray(new String[0]));
+		suggestionList.setVisibleRowCount(Math.min(VISIBLE_SUGGESTIONS, found.size()));
+		// The suggestions start where the text starts, after the icon
+		DefaultListCellRenderer renderer = new DefaultListCellRenderer();
+		renderer.setBorder(BorderFactory.createEmptyBorder(1, Math.max(0, getInsets().left - 1), 1, 2));
+		suggestionList.setCellRenderer(renderer);
+		suggestionScroll.setPreferredSize(null);
+		suggestionScroll.setPreferredSize(new Dimension(getWidth(), suggestionScroll.getPreferredSize().height));
+
+		Point location = getLocationOnScreen();
+		popup = PopupFactory.getSharedInstance().getPopup(this, suggestionScroll, location.x,
+				location.y + getHeight());
+		popup.show();
+	}
+
+	/**
+	 * Hides the suggestions popup.
+	 */
+	private void hideSuggestions() {
+		if (popup != null) {
+			popup.hide();
+			popup = null;
+		}
+	}
+
+	/**
+	 * Moves the selected suggestion, wrapping around.
+	 */
+	private void moveSelection(int delta) {
+		int size = suggestions.size();
+		int index = suggestionList.getSelectedIndex();
+		index = index < 0 ? (delta > 0 ? 0 : size - 1) : Math.floorMod(index + delta, size);
+		suggestionList.setSelectedIndex(index);
+		suggestionList.ensureIndexIsVisible(index);
+	}
+
+	/**
+	 * Puts a suggestion in the field and notifies the action listeners.
+	 */
+	private void acceptSuggestion(String suggestion) {
+		accepting = true;
+		try {
+			setText(suggestion);
+		} finally {
+			accepting = false;
+		}
+		debounce.stop();
+		cancelQuery();
+		hideSuggestions();
+		postActionEvent();
+	}
+
+	@Override
+	public void removeNotify() {
+		if (debounce != null) {
+			debounce.stop();
+			cancelQuery();
+			hideSuggestions();
+		}
+		super.removeNotify();
+	}
+
 	/**
 	 * Overrides the paintComponent method to paint the icon and adjust the text
 	 * field's margin.
@@ -8,21 +8,21 @@ import java.awt.Window;
 import java.awt.datatransfer.StringSelection;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
-import java.io.BufferedReader;
+import java.awt.event.KeyEvent;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.lang.reflect.InvocationTargetException;
-import java.nio.charset.StandardCharsets;
 
+import javax.swing.AbstractAction;
 import javax.swing.Box;
 import javax.swing.JButton;
+import javax.swing.JComponent;
 import javax.swing.JDialog;
 import javax.swing.JFrame;
 import javax.swing.JLabel;
 import javax.swing.JOptionPane;
 import javax.swing.JScrollPane;
-import javax.swing.JTextArea;
+import javax.swing.JTextPane;
 import javax.swing.JToolBar;
+import javax.swing.KeyStroke;
 import javax.swing.ScrollPaneConstants;
 import javax.swing.SwingUtilities;
 import javax.swing.SwingWorker;
@@ -42,7 +42,11 @@ public class JPromptProcess extends JDialog {
 
 	private String content;
 	private Process proc;
-	private JTextArea textArea;
+	private JTextPane textPane;
+	private JScrollPane scrollPane;
+	private LogView logView;
+	private FindBar findBar;
+	private ProcessLog output;
 	private boolean process;
 
 	public static String BUILD_ERROR_TEXT;
@@ -89,15 +93,36 @@ public class JPromptProcess extends JDialog {
 	private void loadGUI() {
 		Container c = getContentPane();
 
-		textArea = new JTextArea(content);
-		textArea.setBorder(new EmptyBorder(0, 10, 0, 0));
-		textArea.setEditable(false);
-
-		JScrollPane sp = new JScrollPane(textArea);
+		textPane = new JTextPane() {
+			@Override
+			public boolean getScrollableTracksViewportWidth() {
+				// Don't wrap the lines, scroll horizontally like a terminal
+				return getParent() == null || getUI().getPreferredSize(this).width <= getParent().getWidth();
+			}
+		};
+		textPane.setText(content);
+		textPane.setBorder(new EmptyBorder(0, 10, 0, 0));
+		textPane.setEditable(false);
+		output = new ProcessLog(textPane, this::reload);
+
+		JScrollPane sp = new JScrollPane(textPane);
+		scrollPane = sp;
 
 		if (this.process) {
-			DefaultCaret caret = (DefaultCaret) textArea.getCaret();
+			DefaultCaret caret = (DefaultCaret) textPane.getCaret();
 			caret.setUpdatePolicy(DefaultCaret.ALWAYS_UPDATE);
+
+			findBar = new FindBar(output);
+			c.add(findBar, BorderLayout.NORTH);
+			getRootPane().getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW).put(
+					KeyStroke.getKeyStroke(KeyEvent.VK_F, Toolkit.getDefaultToolkit().getMenuShortcutKeyMaskEx()),
+					"find");
+			getRootPane().getActionMap().put("find", new AbstractAction() {
+				@Override
+				public void actionPerformed(ActionEvent e) {
+					findBar.focusField();
+				}
+			});
 		} else {
 			JToolBar toolBar = new JToolBar();
 			toolBar.setRollover(true);
@@ -112,7 +137,7 @@ public class JPromptProcess extends JDialog {
 
 				@Override
 				public void actionPerformed(ActionEvent e) {
-					String text = textArea.getText();
+					String text = textPane.getText();
 					if (text != null && text != "") {
 						StringSelection selection = new StringSelection(text);
 						Toolkit.getDefaultToolkit().getSystemClipboard().setContents(selection, selection);
@@ -148,9 +173,106 @@ public class JPromptProcess extends JDialog {
 		centerWindow(this);
 	}
 
+	/**
+	 * Limits the output kept in the dialog window to the given number of lines.
+	 * The oldest lines are dropped, so long running processes use a constant
+	 * amount of memory. Call it before {@link #process()}.
+	 * 
+	 * @param maxLines the maximum number of lines, or 0 for no limit.
+	 */
+	public void setMaxOutputLines(int maxLines) {
+		output.setMaxLines(maxLines);
+	}
+
+	/**
+	 * Limits the output kept in the dialog window to the given number of
+	 * characters. The oldest lines are dropped, so long running processes use a
+	 * constant amount of memory. Call it before {@link #process()}.
+	 * 
+	 * @param maxChars the maximum number of characters, or 0 for no limit.
+	 */
+	public void setMaxOutputChars(int maxChars) {
+		output.setMaxChars(maxChars);
+	}
+
+	/**
+	 * Sets whether the ANSI color and font codes of the output, as printed by
+	 * most build tools, are rendered. By default the escape sequences are only
+	 * removed. Call it before {@link #process()}.
+	 * 
+	 * @param ansiColors true to render the colors.
+	 */
+	public void setAnsiColors(boolean ansiColors) {
+		output.setAnsiColors(ansiColors);
+	}
+
+	/**
+	 * Writes the output to a temporary file instead of keeping it in memory, for
+	 * processes printing gigabytes of output. Only the visible lines are read
+	 * from the file, and the output limits and ANSI colors don't apply. The lines
+	 * after about 134 million can't be scrolled to, nor found. The file is
+	 * deleted when the dialog window is disposed. Call it before
+	 * {@link #process()}.
+	 * 
+	 * @param spillToDisk true to write the output to a temporary file.
+	 */
+	public void setSpillToDisk(boolean spillToDisk) {
+		if (spillToDisk && logView == null) {
+			try {
+				logView = new LogView(new LogFile());
+			} catch (IOException e) {
+				System.out.println("Error, " + e.getStackTrace()[0].getMethodName() + " : " + e);
+				return;
+			}
+			logView.setBorder(textPane.getBorder());
+			scrollPane.setViewportView(logView);
+			output.setView(logView);
+		} else if (!spillToDisk && logView != null) {
+			output.setView(null);
+			scrollPane.setViewportView(textPane);
+			closeLogView();
+		}
+	}
+
+	/**
+	 * Scrolls the output to the given line, when it is written to a temporary
+	 * file.
+	 * 
+	 * @param line the line index, starting at 0.
+	 * @throws IllegalArgumentException if the line is past the lines that can be
+	 *                                  displayed.
+	 */
+	public void scrollToLine(int line) {
+		if (logView != null) {
+			logView.scrollToLine(line);
+		}
+	}
+
+	@Override
+	public void dispose() {
+		super.dispose();
+		// The output of a process still running is read until it ends, and dropped
+		output.discard();
+		if (logView != null) {
+			closeLogView();
+		}
+	}
+
+	/**
+	 * Deletes the temporary file of the output.
+	 */
+	private void closeLogView() {
+		try {
+			logView.getFile().close();
+		} catch (IOException e) {
+			System.out.println("Error, " + e.getStackTrace()[0].getMethodName() + " : " + e);
+		}
+		logView = null;
+	}
+
 	/**
 	 * If the dialog window is displaying the output of a process, this method reads
-	 * the output of the process and displays it in the textArea.
+	 * the output of the process and displays it in the textPane.
 	 */
 	public void process() {
 		if (this.process) {
@@ -160,23 +282,16 @@ public class JPromptProcess extends JDialog {
 				protected Void doInBackground() throws Exception {
 
 					if (proc == null) {
-						textArea.setText(JPromptProcess.BUILD_ERROR_TEXT);
+						textPane.setText(JPromptProcess.BUILD_ERROR_TEXT);
 						setDefaultCloseOperation(WindowConstants.DISPOSE_ON_CLOSE);
 						reload();
 						return null;
 					}
 
-					BufferedReader stdInput = new BufferedReader(
-							new InputStreamReader(proc.getInputStream(), StandardCharsets.UTF_8));
-					BufferedReader stdError = new BufferedReader(
-							new InputStreamReader(proc.getErrorStream(), StandardCharsets.UTF_8));
-
-					// Read the output from the command
-					log(stdInput);
-					// Read any errors from the attempted command
-					log(stdError);
+					// Read the output and the errors from the command at the same time
+					output.log(proc);
 
-					if (proc.exitValue() != 0) {
+					if (proc.waitFor() != 0) {
 						JOptionPane.showMessageDialog(new JFrame(),
 								"Error in the build process.\n Check the build log.", "Build Status",
 								JOptionPane.ERROR_MESSAGE);
@@ -192,28 +307,6 @@ public class JPromptProcess extends JDialog {
 		setDefaultCloseOperation(WindowConstants.DISPOSE_ON_CLOSE);
 	}
 
-	/**
-	 * Reads the output of the process and appends it to the textArea.
-	 * 
-	 * @param bfReader The BufferedReader that will be used to read the output of
-	 *                 the process.
-	 */
-	private void log(BufferedReader bfReader) throws InvocationTargetException, IOException, InterruptedException {
-		String s = null;
-
-		while ((s = bfReader.readLine()) != null) {
-			final String _s = s.replaceAll("\u001B\\[[\\d;]*[^\\d;]", "");
-			SwingUtilities.invokeAndWait(new Runnable() {
-				public void run() {
-					String ret = "\n" + _s;
-					textArea.append(ret);
-					textArea.setCaretPosition(textArea.getDocument().getLength() - ret.length() + 1);
-					reload();
-				}
-			});
-		}
-	}
-
 	/**
 	 * Centers the dialog window on the screen
 	 */
@@ -229,8 +322,11 @@ public class JPromptProcess extends JDialog {
 	 * Refreshes the GUI components of the dialog window.
 	 */
 	private void reload() {
-		textArea.revalidate();
-		textArea.repaint();
+		if (findBar != null) {
+			findBar.refresh();
+		}
+		textPane.revalidate();
+		textPane.repaint();
 		getContentPane().revalidate();
 		getContentPane().repaint();
 	}
@@ -13,16 +13,30 @@ import java.awt.Transparency;
 import java.awt.geom.RoundRectangle2D;
 import java.awt.image.BufferedImage;
 
-import com.jhlabs.image.GaussianFilter;
+import gmai.jstyledcomponents.util.BoxBlur;
 
 /*
  * Rounded panel with gradient shadow behind
  */
 public class JRoundedCard extends JCard {
 
-	// Corners radius size
+	// Shadow size
 	private int shadowSize = 5;
 
+	// Corners radius size
+	private int cornerRadius = 15;
+
+	// Shadow style
+	private Color shadowColor = Color.BLACK;
+	private float shadowAlpha = 0.5f;
+
+	// Paint the shadow from nine slices instead of a full size image
+	private boolean nineSliceShadow = false;
+
+	// Shadow shared with the other cards of the same geometry and style
+	private transient BufferedImage shadow;
+	private transient ShadowCache.Key shadowKey;
+
 	public JRoundedCard() {
 		setOpaque(false);
 	}
@@ -47,19 +61,27 @@ public class JRoundedCard extends JCard {
 		bounds.width = width - (insets.left + insets.right);
 		bounds.height = height - (insets.top + insets.bottom);
 
-		RoundRectangle2D shape = new RoundRectangle2D.Float(bounds.x, bounds.y, bounds.width, bounds.height, 15, 15);
+		RoundRectangle2D shape = new RoundRectangle2D.Float(bounds.x, bounds.y, bounds.width, bounds.height,
+				cornerRadius, cornerRadius);
 
 		// Update only when the size change
-		BufferedImage img = createCompatibleImage(bounds.width, bounds.height);
-		Graphics2D tg2d = img.createGraphics();
-		applyQualityProperties(g2d);
-		tg2d.setColor(Color.BLACK);
-		tg2d.translate(-bounds.x, -bounds.y);
-		tg2d.fill(shape);
-		tg2d.dispose();
-		BufferedImage shadow = generateShadow(img, shadowSize, Color.BLACK, 0.5f);
-
-		g2d.drawImage(shadow, shadowSize, shadowSize, this);
+		if (nineSliceShadow && bounds.width >= 2 * getSliceCorner() && bounds.height >= 2 * getSliceCorner()) {
+			// The slices don't depend on the card size
+			ShadowCache.Key key = new ShadowCache.Key(-1, -1, cornerRadius, shadowSize, shadowColor, shadowAlpha);
+			if (!key.equals(shadowKey)) {
+				shadow = ShadowCache.get(key, this::createShadowSlices);
+				shadowKey = key;
+			}
+			paintShadowSlices(g2d, bounds);
+		} else if (bounds.width > 0 && bounds.height > 0) {
+			ShadowCache.Key key = new ShadowCache.Key(bounds.width, bounds.height, cornerRadius, shadowSize,
+					shadowColor, shadowAlpha);
+			if (!key.equals(shadowKey)) {
+				shadow = ShadowCache.get(key, () -> createShadow(shape, bounds));
+				shadowKey = key;
+			}
+			g2d.drawImage(shadow, shadowSize, shadowSize, this);
+		}
 
 		g2d.setColor(getBackground());
 		g2d.fill(shape);
@@ -73,9 +95,189 @@ public class JRoundedCard extends JCard {
 	}
 
 	/**
-	 * Get the graphics configuration of the environment
+	 * Renders the card shape and generates its shadow
+	 * 
+	 * @param shape  the card shape
+	 * @param bounds the card shape bounds
+	 * @return a image containing the card shadow
+	 */
+	private BufferedImage createShadow(RoundRectangle2D shape, Rectangle bounds) {
+		BufferedImage img = createCompatibleImage(bounds.width, bounds.height);
+		Graphics2D tg2d = img.createGraphics();
+		applyQualityProperties(tg2d);
+		tg2d.setColor(Color.BLACK);
+		tg2d.translate(-bounds.x, -bounds.y);
+		tg2d.fill(shape);
+		tg2d.dispose();
+		return generateShadow(img, shadowSize, shadowColor, shadowAlpha);
+	}
+
+	/**
+	 * Returns the distance from the shape edge covered by a corner slice, which
+	 * contains the rounded corner and the blur around it
+	 */
+	private int getSliceCorner() {
+		return cornerRadius + shadowSize;
+	}
+
+	/**
+	 * Renders a small card shape and blurs it, the result contains the nine slices
+	 * of the shadow: the corners, the edges and the center, each one a single pixel
+	 * wide along the stretched direction
+	 * 
+	 * @return a image containing the shadow slices
+	 */
+	private BufferedImage createShadowSlices() {
+		int margin = shadowSize * 2;
+		int tile = margin + getSliceCorner();
+		int imgSize = tile * 2 + 1;
+
+		BufferedImage imgMask = createCompatibleImage(imgSize, imgSize);
+		Graphics2D g2 = imgMask.createGraphics();
+		applyQualityProperties(g2);
+		g2.setColor(Color.BLACK);
+		g2.fill(new RoundRectangle2D.Float(margin, margin, imgSize - margin * 2, imgSize - margin * 2, cornerRadius,
+				cornerRadius));
+		g2.dispose();
+
+		return generateBlur(imgMask, shadowSize, shadowColor, shadowAlpha);
+	}
+
+	/**
+	 * Paints the shadow slices around the card shape, the corners keep their size
+	 * and the edges and center are stretched to the shape size
+	 * 
+	 * @param g2d    the render
+	 * @param bounds the card shape bounds
+	 */
+	private void paintShadowSlices(Graphics2D g2d, Rectangle bounds) {
+		int margin = shadowSize * 2;
+		int tile = margin + getSliceCorner();
+		int imgSize = shadow.getWidth();
+
+		int x = shadowSize - margin;
+		int y = shadowSize - margin;
+		int w = bounds.width + margin * 2;
+		int h = bounds.height + margin * 2;
+
+		int[] dx = { x, x + tile, x + w - tile, x + w };
+		int[] dy = { y, y + tile, y + h - tile, y + h };
+		int[] src = { 0, tile, tile + 1, imgSize };
+
+		for (int row = 0; row < 3; row++) {
+			for (int col = 0; col < 3; col++) {
+				g2d.drawImage(shadow, dx[col], dy[row], dx[col + 1], dy[row + 1], src[col], src[row], src[col + 1],
+						src[row + 1], this);
+			}
+		}
+	}
+
+	/**
+	 * Returns whether the shadow is painted from nine slices
+	 * 
+	 * @return true if the nine slices mode is on
+	 */
+	public boolean isNineSliceShadow() {
+		return nineSliceShadow;
+	}
+
+	/**
+	 * Sets whether the shadow is painted from nine slices. In this mode only the
+	 * corners and edges of the shadow are blurred, once for each corner radius and
+	 * shadow style, and they are stretched to the card size when painting. The
+	 * shadow doesn't need to be generated again when the card is resized.
+	 * 
+	 * @param nineSliceShadow true to paint the shadow from nine slices
+	 */
+	public void setNineSliceShadow(boolean nineSliceShadow) {
+		this.nineSliceShadow = nineSliceShadow;
+		repaint();
+	}
+
+	/**
+	 * Returns the shadow size
+	 * 
+	 * @return the shadow size
+	 */
+	public int getShadowSize() {
+		return shadowSize;
+	}
+
+	/**
+	 * Sets the shadow size
+	 * 
+	 * @param shadowSize the shadow size
+	 */
+	public void setShadowSize(int shadowSize) {
+		this.shadowSize = shadowSize;
+		repaint();
+	}
+
+	/**
+	 * Returns the corners radius size
+	 * 
+	 * @return the corners radius size
+	 */
+	public int getCornerRadius() {
+		return cornerRadius;
+	}
+
+	/**
+	 * Sets the corners radius size
+	 * 
+	 * @param cornerRadius the corners radius size
+	 */
+	public void setCornerRadius(int cornerRadius) {
+		this.cornerRadius = cornerRadius;
+		repaint();
+	}
+
+	/**
+	 * Returns the shadow color
+	 * 
+	 * @return the shadow color
+	 */
+	public Color getShadowColor() {
+		return shadowColor;
+	}
+
+	/**
+	 * Sets the shadow color
+	 * 
+	 * @param shadowColor the shadow color
+	 */
+	public void setShadowColor(Color shadowColor) {
+		this.shadowColor = shadowColor;
+		repaint();
+	}
+
+	/**
+	 * Returns the shadow transparency percentage
+	 * 
+	 * @return the transparency percentage
+	 */
+	public float getShadowAlpha() {
+		return shadowAlpha;
+	}
+
+	/**
+	 * Sets the shadow transparency percentage
+	 * 
+	 * @param shadowAlpha the transparency percentage
+	 */
+	public void setShadowAlpha(float shadowAlpha) {
+		this.shadowAlpha = shadowAlpha;
+		repaint();
+	}
+
+	/**
+	 * Get the graphics configuration of the environment, there is none when
+	 * running headless
 	 */
 	public GraphicsConfiguration getGraphicsConfiguration() {
+		if (GraphicsEnvironment.isHeadless()) {
+			return super.getGraphicsConfiguration();
+		}
 		return GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice().getDefaultConfiguration();
 	}
 
@@ -87,6 +289,9 @@ public class JRoundedCard extends JCard {
 	 * @return a translucent empty image
 	 */
 	public BufferedImage createCompatibleImage(int width, int height) {
+		if (GraphicsEnvironment.isHeadless()) {
+			return new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB_PRE);
+		}
 		BufferedImage image = getGraphicsConfiguration().createCompatibleImage(width, height, Transparency.TRANSLUCENT);
 		image.coerceData(true);
 		return image;
@@ -150,8 +355,6 @@ public class JRoundedCard extends JCard {
 	 */
 	public BufferedImage generateBlur(BufferedImage imgSource, int size, Color color, float alpha) {
 
-		GaussianFilter filter = new GaussianFilter(size);
-
 		int imgWidth = imgSource.getWidth();
 		int imgHeight = imgSource.getHeight();
 
@@ -166,7 +369,7 @@ public class JRoundedCard extends JCard {
 		g2d.fillRect(0, 0, imgSource.getWidth(), imgSource.getHeight());
 		g2d.dispose();
 
-		imgBlur = filter.filter(imgBlur, null);
+		imgBlur = BoxBlur.blur(imgBlur, size);
 
 		return imgBlur;
 
@@ -1,5 +1,7 @@
 package gmai.jstyledcomponents;
 
+import java.awt.Color;
+import java.awt.Font;
 import java.awt.FontMetrics;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
@@ -11,33 +13,47 @@ import java.awt.event.MouseEvent;
 import java.awt.event.MouseListener;
 import java.awt.event.MouseMotionListener;
 import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
 
 import javax.swing.JToggleButton;
+import javax.swing.SwingUtilities;
 import javax.swing.UIManager;
 
+import gmai.jstyledcomponents.util.ImageUtil;
+
 /**
  * The JToggleButton class extends the JToggleButton class and implements
  * several listener interfaces. It creates a custom toggle button with two
  * states, ON and OFF, and a sliding animation when toggled. The button can be
- * dragged to change its state, and it changes color based on its state.
+ * dragged to change its state, and it changes color based on its state. All
+ * the buttons are animated on the EDT by a single shared timer.
  */
 public class JToogleButton extends JToggleButton
 		implements ActionListener, Runnable, MouseMotionListener, MouseListener, HierarchyListener {
 
+	// Duration of a full slide, shorter slides take proportionally less time
+	private static final long ANIMATION_DURATION = TimeUnit.MILLISECONDS.toNanos(200);
+
 	private int buttonX;
 	private int deltaX = -1;
 	private boolean drag;
 	private String on = "ON", off = "OFF";
 
+	// Pre-rendered layers, rendered again when the size, texts or look and feel change
+	private transient BufferedImage onSprite, offSprite, knobSprite, borderSprite;
+	private int spriteWidth, spriteHeight;
+	private double spriteScale;
+
 	/**
-	 * When the user selects the button, start a new thread to load the data.
+	 * When the user selects the button, slide it to the new state.
 	 *
 	 * @param selected The boolean value that determines whether the button is
 	 *                 selected or not.
 	 */
 	public void setSelected(boolean selected) {
 		super.setSelected(selected);
-		new Thread(this).start();
+		animate();
 	}
 
 	/**
@@ -69,88 +85,215 @@ public class JToogleButton extends JToggleButton
 	}
 
 	/**
-	 * Draws the button and its animation
+	 * Draws the button and its animation. The track, labels, knob and border are
+	 * rendered once in sprites, each frame only copies them.
 	 *
 	 * @param g The Graphics object to paint to.
 	 */
 	public void paint(Graphics g) {
 		Graphics2D g2d = (Graphics2D) g;
 		int width = Math.round(getWidth() / 2);
-		int round = 3;
+		double scale = g2d.getTransform().getScaleX();
 
-		if (buttonX >= width) {
-			g2d.setColor(UIManager.getColor("Actions.Blue"));
-		} else if (buttonX < width) {
-			g2d.setColor(UIManager.getColor("Actions.Red"));
+		if (width <= 0 || getHeight() <= 0) {
+			return;
+		}
+		if (knobSprite == null || spriteWidth != getWidth() || spriteHeight != getHeight() || spriteScale != scale) {
+			createSprites(scale);
 		}
 
-		g2d.fillRoundRect(0, 0, width * 2, getHeight(), round, round);
+		g2d.drawImage(buttonX >= width ? onSprite : offSprite, 0, 0, width * 2, getHeight(), null);
+		g2d.drawImage(knobSprite, buttonX, 0, width, getHeight(), null);
+		g2d.drawImage(borderSprite, 0, 0, width * 2, getHeight(), null);
+	}
+
+	/**
+	 * Renders the sprites for the current size, texts and look and feel. The
+	 * sprites have the device resolution of the given scale.
+	 *
+	 * @param scale the scale of the graphics the button is painted to.
+	 */
+	private void createSprites(double scale) {
+		int width = Math.round(getWidth() / 2);
+		int height = getHeight();
+		int round = 3;
+
+		onSprite = createTrackSprite(UIManager.getColor("Actions.Blue"), width, height, round, scale);
+		offSprite = createTrackSprite(UIManager.getColor("Actions.Red"), width, height, round, scale);
+
+		knobSprite = createSprite(width, height, scale);
+		Graphics2D g2d = knobSprite.createGraphics();
+		g2d.scale(scale, scale);
+		g2d.setColor(UIManager.getColor("Button.background"));
+		g2d.fillRoundRect(0, 0, width, height, round, round);
+		g2d.dispose();
+
+		borderSprite = createSprite(width * 2, height, scale);
+		g2d = borderSprite.createGraphics();
+		g2d.scale(scale, scale);
+		g2d.setColor(UIManager.getColor("ComboBox.disabledForeground"));
+		g2d.drawRoundRect(0, 0, (width * 2) - 1, height - 1, round, round);
+		g2d.dispose();
+
+		spriteWidth = getWidth();
+		spriteHeight = height;
+		spriteScale = scale;
+	}
 
+	/**
+	 * Renders the track of the button with both labels.
+	 *
+	 * @param color  the track color.
+	 * @param width  the width of half the track.
+	 * @param height the track height.
+	 * @param round  the corners size.
+	 * @param scale  the scale of the sprite.
+	 * @return the track sprite.
+	 */
+	private BufferedImage createTrackSprite(Color color, int width, int height, int round, double scale) {
+		BufferedImage sprite = createSprite(width * 2, height, scale);
+		Graphics2D g2d = sprite.createGraphics();
+		g2d.scale(scale, scale);
+
+		g2d.setColor(color);
+		g2d.fillRoundRect(0, 0, width * 2, height, round, round);
+
+		Font font = UIManager.getDefaults().getFont("ToggleButton.font");
+		g2d.setFont(font != null ? font : getFont());
 		g2d.setColor(UIManager.getColor("Button.foreground"));
 		FontMetrics fm = g2d.getFontMetrics();
-		g.setFont(UIManager.getDefaults().getFont("ToggleButton.font"));
 
 		String mode = on.toUpperCase();
 		Rectangle2D r = fm.getStringBounds(mode, g2d);
 		int x = (width - (int) r.getWidth()) / 2;
-		int y = (this.getHeight() - (int) r.getHeight()) / 2 + fm.getAscent();
-		g.drawString(mode, x, y);
+		int y = (height - (int) r.getHeight()) / 2 + fm.getAscent();
+		g2d.drawString(mode, x, y);
 
 		mode = off.toUpperCase();
 		r = fm.getStringBounds(mode, g2d);
 		x = width + (width - (int) r.getWidth()) / 2;
-		g.drawString(mode, x, y);
+		g2d.drawString(mode, x, y);
 
-		g2d.setColor(UIManager.getColor("Button.background"));
-		g2d.fillRoundRect(buttonX, 0, width, getHeight(), round, round);
+		g2d.dispose();
+		return sprite;
+	}
 
-		g2d.setColor(UIManager.getColor("ComboBox.disabledForeground"));
-		g2d.drawRoundRect(0, 0, (width * 2) - 1, getHeight() - 1, round, round);
+	/**
+	 * Creates an empty sprite with the given size in the button coordinates.
+	 */
+	private static BufferedImage createSprite(int width, int height, double scale) {
+		return ImageUtil.createCompatibleImage((int) Math.ceil(width * scale), (int) Math.ceil(height * scale));
+	}
+
+	/**
+	 * Discards the sprites, so they are rendered again at the next paint.
+	 */
+	private void invalidateSprites() {
+		knobSprite = null;
+		repaint();
+	}
+
+	/**
+	 * Resets the UI property with a value from the current look and feel, the
+	 * sprites are rendered again with the new colors and font.
+	 */
+	@Override
+	public void updateUI() {
+		super.updateUI();
+		invalidateSprites();
+	}
+
+	/**
+	 * Returns the text of the active mode.
+	 *
+	 * @return the text of the active mode.
+	 */
+	public String getActiveText() {
+		return on;
 	}
 
 	/**
-	 * If the user is not dragging the mouse, then start a new thread that will run
-	 * the run() function
+	 * Sets the text of the active mode.
+	 *
+	 * @param activeText the custom text to the active mode.
+	 */
+	public void setActiveText(String activeText) {
+		this.on = activeText;
+		invalidateSprites();
+	}
+
+	/**
+	 * Returns the text of the disabled mode.
+	 *
+	 * @return the text of the disabled mode.
+	 */
+	public String getDisableText() {
+		return off;
+	}
+
+	/**
+	 * Sets the text of the disabled mode.
+	 *
+	 * @param disableText the custom text to the disabled mode.
+	 */
+	public void setDisableText(String disableText) {
+		this.off = disableText;
+		invalidateSprites();
+	}
+
+	/**
+	 * If the user is not dragging the mouse, then slide the button to its state
 	 *
 	 * @param e The event that triggered the action.
 	 */
 	@Override
 	public void actionPerformed(ActionEvent e) {
 		if (!drag) {
-			// threadStop = true;
-			new Thread(this).start();
+			animate();
 		}
 	}
 
 	/**
 	 * Runnable interface to animate the button's sliding animation. If the button
-	 * is selected, move the button to the right, otherwise move it to the left
+	 * is selected, move the button to the right, otherwise move it to the left.
+	 * The animation runs on the shared animation timer, this method doesn't block.
 	 */
 	@Override
 	public void run() {
-		// while (true) {
-		// if (threadStop) {
-		if (this.isSelected()) {
-			for (; buttonX <= Math.round(getWidth() / 2) - 1; buttonX++) {
-				this.repaint();
-				try {
-					Thread.sleep(5);
-				} catch (InterruptedException e) {
-					e.printStackTrace();
-				}
-			}
+		animate();
+	}
 
-		} else {
-			for (; buttonX > 0; buttonX--) {
-				this.repaint();
-				try {
-					Thread.sleep(5);
-				} catch (InterruptedException e) {
-					e.printStackTrace();
-				}
-			}
+	/**
+	 * Starts the sliding animation to the current state, replacing the running
+	 * one. The animation is time based with an ease out, and it is skipped when
+	 * the button is not showing.
+	 */
+	private void animate() {
+		if (!SwingUtilities.isEventDispatchThread()) {
+			SwingUtilities.invokeLater(this::animate);
+			return;
 		}
-		repaint();
+
+		int half = getWidth() / 2;
+		int target = isSelected() ? half : 0;
+		int start = buttonX;
+
+		if (!isShowing() || start == target) {
+			Animator.stop(this);
+			buttonX = target;
+			repaint();
+			return;
+		}
+
+		long begin = System.nanoTime();
+		long duration = ANIMATION_DURATION * Math.abs(target - start) / Math.max(half, 1);
+		Animator.start(this, now -> {
+			float t = duration > 0 ? Math.min(1f, (now - begin) / (float) duration) : 1f;
+			float eased = 1 - (1 - t) * (1 - t) * (1 - t);
+			buttonX = start + Math.round((target - start) * eased);
+			repaint();
+			return t < 1f;
+		});
 	}
 
 	/**
@@ -162,7 +305,7 @@ public class JToogleButton extends JToggleButton
 	@Override
 	public void mouseDragged(MouseEvent evt) {
 		drag = true;
-		// threadStop = false;
+		Animator.stop(this);
 		if (deltaX == -1) {
 			deltaX = evt.getX() - buttonX;
 		}
@@ -220,13 +363,16 @@ public class JToogleButton extends JToggleButton
 	}
 
 	/**
-	 * When the hierarchy of the component changes, start a new thread that will run
-	 * the run() function.
+	 * When the button is shown or hidden, place it at its state without animation.
 	 *
 	 * @param arg0 The event that triggered this method.
 	 */
 	@Override
 	public void hierarchyChanged(HierarchyEvent arg0) {
-		new Thread(this).start();
+		if ((arg0.getChangeFlags() & HierarchyEvent.SHOWING_CHANGED) != 0) {
+			Animator.stop(this);
+			buttonX = isSelected() ? getWidth() / 2 : 0;
+			repaint();
+		}
 	}
 }
@@ -0,0 +1,189 @@
+package gmai.jstyledcomponents;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Stores the lines of a process output in a temporary file. Only the offset of
+ * each line is kept in memory, in chunks of long arrays, so reaching any line
+ * is a constant time lookup and a positioned read. The file is deleted when
+ * closed, and the lines appended afterwards are ignored, so the readers of a
+ * process still running can keep reading its output.
+ * <p>
+ * The lines are appended by the reader threads and read by the EDT, the
+ * offsets are guarded by the instance lock.
+ */
+final class LogFile implements Closeable {
+
+	private static final int CHUNK_BITS = 16;
+	private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+	private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+	/**
+	 * Size of the write buffer, the lines are written to the file in blocks.
+	 */
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private final FileChannel channel;
+	private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+	/**
+	 * The start offset of each line, shifted left by one, with the lowest bit set
+	 * for the lines of the error output.
+	 */
+	private long[][] index = new long[16][];
+	private int lineCount;
+	private int maxLength;
+	private long size;
+	private long flushed;
+	private boolean closed;
+
+	/**
+	 * Creates an empty log in a new temporary file.
+	 *
+	 * @throws IOException if the file cannot be created
+	 */
+	LogFile() throws IOException {
+		channel = FileChannel.open(Files.createTempFile("JPromptProcess", ".log"), StandardOpenOption.READ,
+				StandardOpenOption.WRITE, StandardOpenOption.DELETE_ON_CLOSE);
+	}
+
+	/**
+	 * Appends a line to the log, unless it's closed.
+	 *
+	 * @param line  the line, without line separator
+	 * @param error true if the line was read from the error output
+	 * @throws IOException if the line cannot be written
+	 */
+	synchronized void append(String line, boolean error) throws IOException {
+		if (closed) {
+			return;
+		}
+		int chunk = lineCount >>> CHUNK_BITS;
+		if (chunk == index.length) {
+			index = Arrays.copyOf(index, chunk * 2);
+		}
+		if (index[chunk] == null) {
+			index[chunk] = new long[CHUNK_SIZE];
+		}
+		index[chunk][lineCount & CHUNK_MASK] = size << 1 | (error ? 1 : 0);
+		lineCount++;
+		maxLength = Math.max(maxLength, line.length());
+
+		byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+		if (bytes.length >= buffer.remaining()) {
+			flush();
+		}
+		if (bytes.length >= buffer.remaining()) {
+			// Longer than the buffer, written directly
+			write(ByteBuffer.wrap(bytes));
+		} else {
+			buffer.put(bytes);
+		}
+		buffer.put((byte) '\n');
+		size += bytes.length + 1;
+	}
+
+	/**
+	 * Returns the number of lines of the log.
+	 *
+	 * @return the number of lines
+	 */
+	synchronized int getLineCount() {
+		return lineCount;
+	}
+
+	/**
+	 * Returns the length of the longest line, in characters.
+	 *
+	 * @return the maximum line length
+	 */
+	synchronized int getMaxLength() {
+		return maxLength;
+	}
+
+	/**
+	 * Returns whether a line was read from the error output.
+	 *
+	 * @param line the line index
+	 * @return true for a line of the error output
+	 */
+	synchronized boolean isError(int line) {
+		return (entry(line) & 1) != 0;
+	}
+
+	/**
+	 * Reads a range of lines with a single read.
+	 *
+	 * @param from the index of the first line, inclusive
+	 * @param to   the index of the last line, exclusive
+	 * @return the lines
+	 * @throws IOException if the lines cannot be read
+	 */
+	String[] readLines(int from, int to) throws IOException {
+		long[] offsets;
+		synchronized (this) {
+			to = Math.min(to, lineCount);
+			from = Math.max(0, Math.min(from, to));
+			offsets = new long[to - from + 1];
+			for (int i = from; i < to; i++) {
+				offsets[i - from] = entry(i) >>> 1;
+			}
+			offsets[to - from] = to < lineCount ? entry(to) >>> 1 : size;
+			if (offsets[to - from] > flushed) {
+				flush();
+			}
+		}
+
+		// The flushed part of the file doesn't change, so it's read without the lock
+		long start = offsets[0];
+		ByteBuffer bytes = ByteBuffer.allocate((int) (offsets[offsets.length - 1] - start));
+		while (bytes.hasRemaining()) {
+			if (channel.read(bytes, start + bytes.position()) < 0) {
+				break;
+			}
+		}
+
+		String[] lines = new String[offsets.length - 1];
+		for (int i = 0; i < lines.length; i++) {
+			int offset = (int) (offsets[i] - start);
+			int length = (int) (offsets[i + 1] - offsets[i]) - 1;
+			lines[i] = new String(bytes.array(), offset, length, StandardCharsets.UTF_8);
+		}
+		return lines;
+	}
+
+	/**
+	 * Closes and deletes the file.
+	 */
+	@Override
+	public synchronized void close() throws IOException {
+		closed = true;
+		channel.close();
+	}
+
+	private long entry(int line) {
+		return index[line >>> CHUNK_BITS][line & CHUNK_MASK];
+	}
+
+	/**
+	 * Writes the buffered lines to the file.
+	 */
+	private void flush() throws IOException {
+		buffer.flip();
+		write(buffer);
+		buffer.clear();
+	}
+
+	private void write(ByteBuffer bytes) throws IOException {
+		while (bytes.hasRemaining()) {
+			flushed += channel.write(bytes, flushed);
+		}
+	}
+}
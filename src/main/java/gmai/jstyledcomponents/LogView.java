@@ -0,0 +1,234 @@
+package gmai.jstyledcomponents;
+
+import java.awt.Color;
+import java.awt.Container;
+import java.awt.Dimension;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Insets;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.io.IOException;
+
+import javax.swing.JComponent;
+import javax.swing.JViewport;
+import javax.swing.Scrollable;
+import javax.swing.SwingConstants;
+import javax.swing.UIManager;
+
+/**
+ * Displays a LogFile in a scroll pane. Only the visible lines are read from the
+ * file and painted, so the view handles outputs of any size. All the lines have
+ * the same height, so the position of any line is computed directly.
+ * <p>
+ * The height of a component is an int, so the view only displays the lines
+ * that fit in Integer.MAX_VALUE pixels, about 134 million lines of 16 pixels.
+ * The lines after them stay in the file but can't be scrolled to.
+ */
+class LogView extends JComponent implements Scrollable {
+
+	private final LogFile file;
+	private int lineCount;
+	private Color errorColor;
+	private Color selectionColor;
+	private int selectedLine = -1;
+	private int selectedColumn;
+	private int selectedLength;
+
+	/**
+	 * Constructs a view of the given log.
+	 *
+	 * @param file the log to display
+	 */
+	LogView(LogFile file) {
+		this.file = file;
+		setOpaque(true);
+		updateUI();
+	}
+
+	@Override
+	public void updateUI() {
+		super.updateUI();
+		Font font = UIManager.getFont("TextPane.font");
+		setFont(new Font(Font.MONOSPACED, Font.PLAIN, font != null ? font.getSize() : 12));
+		setForeground(UIManager.getColor("TextPane.foreground"));
+		setBackground(UIManager.getColor("TextPane.background"));
+		Color red = UIManager.getColor("Actions.Red");
+		errorColor = red != null ? red : new Color(0xC0, 0x30, 0x30);
+		selectionColor = UIManager.getColor("TextPane.selectionBackground");
+	}
+
+	/**
+	 * Returns the displayed log.
+	 *
+	 * @return the log file
+	 */
+	LogFile getFile() {
+		return file;
+	}
+
+	/**
+	 * Returns the height of a line.
+	 *
+	 * @return the line height in pixels
+	 */
+	int getLineHeight() {
+		return getFontMetrics(getFont()).getHeight();
+	}
+
+	/**
+	 * Returns the number of lines the view can display, the lines fitting in the
+	 * largest height of a component.
+	 *
+	 * @return the maximum number of displayed lines
+	 */
+	int getMaxLineCount() {
+		Insets insets = getInsets();
+		return (Integer.MAX_VALUE - insets.top - insets.bottom) / getLineHeight();
+	}
+
+	/**
+	 * Resizes the view to the lines appended to the log. If the last line was
+	 * visible, the view scrolls to the new last line. Must be called on the EDT.
+	 */
+	void linesAdded() {
+		int count = file.getLineCount();
+		if (count == lineCount) {
+			return;
+		}
+
+		Container parent = getParent();
+		boolean follow = false;
+		if (parent instanceof JViewport) {
+			Rectangle visible = ((JViewport) parent).getViewRect();
+			follow = visible.y + visible.height >= getHeight() - getLineHeight();
+		}
+		lineCount = count;
+		setSize(getPreferredSize());
+		revalidate();
+		if (follow) {
+			scrollToLine(Math.min(count, getMaxLineCount()) - 1);
+		}
+		repaint();
+	}
+
+	/**
+	 * Scrolls the view so the given line is at the top, or as close as possible.
+	 *
+	 * @param line the line index
+	 * @throws IllegalArgumentException if the line is past the lines the view can
+	 *                                  display
+	 */
+	void scrollToLine(int line) {
+		int maxLines = getMaxLineCount();
+		if (line >= maxLines) {
+			throw new IllegalArgumentException(
+					"Line " + line + " is past the last line the view can display, " + (maxLines - 1));
+		}
+		Container parent = getParent();
+		if (parent instanceof JViewport) {
+			JViewport viewport = (JViewport) parent;
+			long y = (long) Math.max(0, line) * getLineHeight() + getInsets().top;
+			int maxY = Math.max(0, getHeight() - viewport.getExtentSize().height);
+			viewport.setViewPosition(new Point(viewport.getViewPosition().x, (int) Math.min(y, maxY)));
+		}
+	}
+
+	/**
+	 * Highlights a part of a line and scrolls to center it.
+	 *
+	 * @param line   the line index
+	 * @param column the start of the highlight in the line
+	 * @param length the length of the highlight
+	 */
+	void select(int line, int column, int length) {
+		selectedLine = line;
+		selectedColumn = column;
+		selectedLength = length;
+
+		Container parent = getParent();
+		if (parent instanceof JViewport) {
+			int visibleLines = ((JViewport) parent).getExtentSize().height / getLineHeight();
+			scrollToLine(line - visibleLines / 2);
+		}
+		repaint();
+	}
+
+	@Override
+	public Dimension getPreferredSize() {
+		if (isPreferredSizeSet()) {
+			return super.getPreferredSize();
+		}
+		Insets insets = getInsets();
+		FontMetrics metrics = getFontMetrics(getFont());
+		long width = (long) file.getMaxLength() * metrics.charWidth('m') + insets.left + insets.right;
+		int height = Math.min(lineCount, getMaxLineCount()) * metrics.getHeight() + insets.top + insets.bottom;
+		return new Dimension((int) Math.min(width, Integer.MAX_VALUE), height);
+	}
+
+	@Override
+	protected void paintComponent(Graphics g) {
+		Graphics2D g2d = (Graphics2D) g.create();
+		Rectangle clip = g2d.getClipBounds();
+		g2d.setColor(getBackground());
+		g2d.fillRect(clip.x, clip.y, clip.width, clip.height);
+		g2d.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+		g2d.setFont(getFont());
+
+		Insets insets = getInsets();
+		FontMetrics metrics = g2d.getFontMetrics();
+		int lineHeight = metrics.getHeight();
+		int first = Math.max(0, (clip.y - insets.top) / lineHeight);
+		int last = Math.min(lineCount, (clip.y + clip.height - insets.top) / lineHeight + 1);
+
+		if (first < last) {
+			try {
+				String[] lines = file.readLines(first, last);
+				int y = insets.top + first * lineHeight + metrics.getAscent();
+				for (int i = 0; i < lines.length; i++, y += lineHeight) {
+					if (first + i == selectedLine && selectionColor != null) {
+						String line = lines[i];
+						int start = Math.min(selectedColumn, line.length());
+						int end = Math.min(selectedColumn + selectedLength, line.length());
+						g2d.setColor(selectionColor);
+						g2d.fillRect(insets.left + metrics.stringWidth(line.substring(0, start)),
+								y - metrics.getAscent(), metrics.stringWidth(line.substring(start, end)), lineHeight);
+					}
+					g2d.setColor(file.isError(first + i) ? errorColor : getForeground());
+					g2d.drawString(lines[i], insets.left, y);
+				}
+			} catch (IOException e) {
+				System.out.println("Error, " + e.getStackTrace()[0].getMethodName() + " : " + e);
+			}
+		}
+		g2d.dispose();
+	}
+
+	@Override
+	public Dimension getPreferredScrollableViewportSize() {
+		return getPreferredSize();
+	}
+
+	@Override
+	public int getScrollableUnitIncrement(Rectangle visibleRect, int orientation, int direction) {
+		return orientation == SwingConstants.VERTICAL ? getLineHeight() : getFontMetrics(getFont()).charWidth('m');
+	}
+
+	@Override
+	public int getScrollableBlockIncrement(Rectangle visibleRect, int orientation, int direction) {
+		return orientation == SwingConstants.VERTICAL ? visibleRect.height : visibleRect.width;
+	}
+
+	@Override
+	public boolean getScrollableTracksViewportWidth() {
+		return getParent() != null && getPreferredSize().width <= getParent().getWidth();
+	}
+
+	@Override
+	public boolean getScrollableTracksViewportHeight() {
+		return getParent() != null && getPreferredSize().height <= getParent().getHeight();
+	}
+}
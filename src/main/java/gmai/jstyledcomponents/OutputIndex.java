@@ -0,0 +1,405 @@
+package gmai.jstyledcomponents;
+
+import java.util.Arrays;
+
+/**
+ * Indexes the lines of a process output as they are read, so they can be
+ * searched without scanning the whole output. The lines are grouped in blocks,
+ * each block has a bloom filter of the case insensitive trigrams of its lines,
+ * so a search only reads the blocks that may contain the text. The positions of
+ * the error and warning lines are kept in sorted arrays.
+ * <p>
+ * The trigrams of the last block are kept in an exact set. When the block is
+ * full, they are moved to a bloom filter sized to their number, with 10 to 20
+ * bits per trigram and 3 hashes, so at most about 2% of the blocks not
+ * containing a query are read, however long the lines are.
+ * <p>
+ * When the oldest lines of the output are trimmed, their blocks and error and
+ * warning positions are dropped, so the index of a limited output keeps a
+ * constant size.
+ * <p>
+ * Its methods are synchronized, the lines are added by the reader threads and
+ * searched from the EDT.
+ */
+final class OutputIndex {
+
+	/**
+	 * Reads a range of indexed lines.
+	 */
+	interface Lines {
+		/**
+		 * Reads the lines between from, inclusive, and to, exclusive.
+		 *
+		 * @param from the first line
+		 * @param to   the line after the last line
+		 * @return the lines
+		 */
+		String[] read(int from, int to);
+	}
+
+	/**
+	 * Each block indexes 2^BLOCK_BITS lines.
+	 */
+	private static final int BLOCK_BITS = 8;
+
+	/**
+	 * Minimum number of filter bits per trigram of a block.
+	 */
+	private static final int BITS_PER_TRIGRAM = 10;
+
+	/**
+	 * Number of bits set in a filter for each trigram.
+	 */
+	private static final int HASHES = 3;
+
+	/**
+	 * The filters of the full blocks from firstBlock, each a power of 2 bits.
+	 * The blocks before firstBlock were trimmed.
+	 */
+	private long[][] filters = new long[64][];
+	private int firstBlock;
+
+	/**
+	 * The trigrams of the last block, an open addressing set whose empty slots
+	 * are 0, and its number of trigrams.
+	 */
+	private long[] trigrams = new long[1024];
+	private int trigramCount;
+
+	private int lineCount;
+	private int[] errors = new int[16];
+	private int errorCount;
+	private int[] warnings = new int[16];
+	private int warningCount;
+
+	/**
+	 * Number of error and warning lines trimmed.
+	 */
+	private int trimmedErrors;
+	private int trimmedWarnings;
+
+	/**
+	 * Indexes the next line.
+	 *
+	 * @param line the line text
+	 */
+	synchronized void add(String line) {
+		for (int i = 0; i + 3 <= line.length(); i++) {
+			addTrigram(trigram(line, i));
+		}
+
+		if (isError(line)) {
+			if (errorCount == errors.length) {
+				errors = Arrays.copyOf(errors, errorCount * 2);
+			}
+			errors[errorCount++] = lineCount;
+		} else if (isWarning(line)) {
+			if (warningCount == warnings.length) {
+				warnings = Arrays.copyOf(warnings, warningCount * 2);
+			}
+			warnings[warningCount++] = lineCount;
+		}
+		lineCount++;
+		if ((lineCount & ((1 << BLOCK_BITS) - 1)) == 0) {
+			sealBlock((lineCount >>> BLOCK_BITS) - 1);
+		}
+	}
+
+	/**
+	 * Adds a trigram to the set of the last block, growing it at half full.
+	 */
+	private void addTrigram(long trigram) {
+		if (trigramCount * 2 >= trigrams.length) {
+			long[] previous = trigrams;
+			trigrams = new long[previous.length * 2];
+			trigramCount = 0;
+			for (long t : previous) {
+				if (t != 0) {
+					addTrigram(t);
+				}
+			}
+		}
+		int mask = trigrams.length - 1;
+		for (int i = (int) mix(trigram) & mask;; i = (i + 1) & mask) {
+			if (trigrams[i] == trigram) {
+				return;
+			}
+			if (trigrams[i] == 0) {
+				trigrams[i] = trigram;
+				trigramCount++;
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Returns whether the set of the last block contains a trigram.
+	 */
+	private boolean containsTrigram(long trigram) {
+		int mask = trigrams.length - 1;
+		for (int i = (int) mix(trigram) & mask;; i = (i + 1) & mask) {
+			if (trigrams[i] == trigram) {
+				return true;
+			}
+			if (trigrams[i] == 0) {
+				return false;
+			}
+		}
+	}
+
+	/**
+	 * Moves the trigrams of the full block to its bloom filter, and empties the
+	 * set for the next block.
+	 */
+	private void sealBlock(int block) {
+		int bits = Math.max(64, Integer.highestOneBit(Math.max(1, trigramCount * BITS_PER_TRIGRAM - 1)) << 1);
+		long[] filter = new long[bits / 64];
+		for (long t : trigrams) {
+			if (t != 0) {
+				long hash = mix(t);
+				for (int k = 0; k < HASHES; k++) {
+					int bit = filterBit(hash, k, bits);
+					filter[bit >>> 6] |= 1L << bit;
+				}
+			}
+		}
+		if (block - firstBlock == filters.length) {
+			filters = Arrays.copyOf(filters, filters.length * 2);
+		}
+		filters[block - firstBlock] = filter;
+		Arrays.fill(trigrams, 0);
+		trigramCount = 0;
+	}
+
+	/**
+	 * Drops the blocks whose lines are all before the given line, and the error
+	 * and warning lines before it, once the oldest lines are removed from the
+	 * output.
+	 *
+	 * @param firstLine the first line kept in the output
+	 */
+	synchronized void trim(int firstLine) {
+		int block = Math.min(firstLine, lineCount) >>> BLOCK_BITS;
+		if (block > firstBlock) {
+			int kept = (lineCount >>> BLOCK_BITS) - block;
+			filters = Arrays.copyOfRange(filters, block - firstBlock, block - firstBlock + Math.max(64, kept * 2));
+			firstBlock = block;
+		}
+
+		int i = firstAtOrAfter(errors, errorCount, firstLine);
+		if (i > 0) {
+			errors = Arrays.copyOfRange(errors, i, i + Math.max(16, (errorCount - i) * 2));
+			errorCount -= i;
+			trimmedErrors += i;
+		}
+		i = firstAtOrAfter(warnings, warningCount, firstLine);
+		if (i > 0) {
+			warnings = Arrays.copyOfRange(warnings, i, i + Math.max(16, (warningCount - i) * 2));
+			warningCount -= i;
+			trimmedWarnings += i;
+		}
+	}
+
+	/**
+	 * Returns the index of the first line at or after the given line, in a sorted
+	 * array of lines.
+	 */
+	private static int firstAtOrAfter(int[] lines, int count, int line) {
+		int i = Arrays.binarySearch(lines, 0, count, line);
+		return i >= 0 ? i : -i - 1;
+	}
+
+	/**
+	 * Returns the number of indexed lines.
+	 *
+	 * @return the number of lines
+	 */
+	synchronized int getLineCount() {
+		return lineCount;
+	}
+
+	/**
+	 * Returns the number of error lines, including the trimmed lines.
+	 *
+	 * @return the number of errors
+	 */
+	synchronized int getErrorCount() {
+		return trimmedErrors + errorCount;
+	}
+
+	/**
+	 * Returns the number of warning lines, including the trimmed lines.
+	 *
+	 * @return the number of warnings
+	 */
+	synchronized int getWarningCount() {
+		return trimmedWarnings + warningCount;
+	}
+
+	/**
+	 * Returns the first error line at or after the given line.
+	 *
+	 * @param from the first line to consider
+	 * @return the error line, or -1 if there is none
+	 */
+	synchronized int nextError(int from) {
+		int i = firstAtOrAfter(errors, errorCount, from);
+		return i < errorCount ? errors[i] : -1;
+	}
+
+	/**
+	 * Finds the next or previous occurrence of a text, ignoring the case. The
+	 * search starts at the given position, inclusive, and only reads the blocks
+	 * whose filter may contain the text.
+	 *
+	 * @param query   the text to find
+	 * @param line    the line to start from
+	 * @param column  the column to start from in this line
+	 * @param forward true to search towards the end
+	 * @param start   the first line that can be read
+	 * @param end     the line after the last line that can be read
+	 * @param lines   reads the lines
+	 * @return the line in the high 32 bits and the column in the low 32 bits, or
+	 *         -1 if the text isn't found
+	 */
+	long find(String query, int line, int column, boolean forward, int start, int end, Lines lines) {
+		if (query.isEmpty() || start >= end) {
+			return -1;
+		}
+		if (line < start) {
+			line = start;
+			column = forward ? 0 : -1;
+		} else if (line >= end) {
+			line = end - 1;
+			column = Integer.MAX_VALUE;
+		}
+
+		while (line >= start && line < end) {
+			int block = line >>> BLOCK_BITS;
+			int from = forward ? line : Math.max(start, block << BLOCK_BITS);
+			int to = forward ? Math.min(end, (block + 1) << BLOCK_BITS) : line + 1;
+
+			if (mayContain(block, query)) {
+				String[] read = lines.read(from, to);
+				for (int i = forward ? 0 : read.length - 1; i >= 0 && i < read.length; i += forward ? 1 : -1) {
+					boolean first = from + i == line;
+					int found = forward ? indexOf(read[i], query, first ? column : 0)
+							: lastIndexOf(read[i], query, first ? column : Integer.MAX_VALUE);
+					if (found >= 0) {
+						return (long) (from + i) << 32 | found;
+					}
+				}
+			}
+			line = forward ? to : from - 1;
+			column = forward ? 0 : Integer.MAX_VALUE;
+		}
+		return -1;
+	}
+
+	/**
+	 * Returns false if no line of the block contains all the trigrams of the
+	 * query. Queries shorter than a trigram may be in any block.
+	 */
+	private synchronized boolean mayContain(int block, String query) {
+		int lastBlock = lineCount >>> BLOCK_BITS;
+		// The lines of the trimmed blocks can't be read
+		if (block < firstBlock || block > lastBlock
+				|| block == lastBlock && (lineCount & ((1 << BLOCK_BITS) - 1)) == 0) {
+			return false;
+		}
+		long[] filter = block < lastBlock ? filters[block - firstBlock] : null;
+		for (int i = 0; i + 3 <= query.length(); i++) {
+			long t = trigram(query, i);
+			if (filter == null) {
+				if (!containsTrigram(t)) {
+					return false;
+				}
+				continue;
+			}
+			long hash = mix(t);
+			for (int k = 0; k < HASHES; k++) {
+				int bit = filterBit(hash, k, filter.length * 64);
+				if ((filter[bit >>> 6] & 1L << bit) == 0) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the case folded trigram starting at the index, as three 16 bit
+	 * characters. The top bit is set so a trigram is never 0.
+	 */
+	private static long trigram(String s, int i) {
+		return 1L << 48 | (long) fold(s.charAt(i)) << 32 | (long) fold(s.charAt(i + 1)) << 16 | fold(s.charAt(i + 2));
+	}
+
+	/**
+	 * Folds the case of a character as String.regionMatches does when ignoring
+	 * the case, the lower case of the upper case, so characters such as the
+	 * long s or the Kelvin sign match the same trigrams as the letters they
+	 * match. The surrogates, compared as code points, all fold to the same
+	 * value.
+	 */
+	private static char fold(char c) {
+		if (Character.isSurrogate(c)) {
+			return Character.MIN_SURROGATE;
+		}
+		return Character.toLowerCase(Character.toUpperCase(c));
+	}
+
+	/**
+	 * Mixes the bits of a trigram, as the 64 bit finalizer of MurmurHash3.
+	 */
+	private static long mix(long h) {
+		h ^= h >>> 33;
+		h *= 0xFF51AFD7ED558CCDL;
+		h ^= h >>> 33;
+		h *= 0xC4CEB9FE1A85EC53L;
+		return h ^ h >>> 33;
+	}
+
+	/**
+	 * Returns the k-th filter bit of a hash, by double hashing its two halves.
+	 */
+	private static int filterBit(long hash, int k, int bits) {
+		int h1 = (int) hash;
+		int h2 = (int) (hash >>> 32) | 1;
+		return (h1 + k * h2) & (bits - 1);
+	}
+
+	/**
+	 * Returns whether the line reports an error, as a log level or a compiler
+	 * message.
+	 */
+	private static boolean isError(String line) {
+		return line.contains("ERROR") || line.contains("error:") || line.contains("FAILURE");
+	}
+
+	/**
+	 * Returns whether the line reports a warning, as a log level or a compiler
+	 * message.
+	 */
+	private static boolean isWarning(String line) {
+		return line.contains("WARN") || line.contains("warning:");
+	}
+
+	private static int indexOf(String s, String query, int from) {
+		for (int i = Math.max(0, from); i + query.length() <= s.length(); i++) {
+			if (s.regionMatches(true, i, query, 0, query.length())) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private static int lastIndexOf(String s, String query, int from) {
+		for (int i = Math.min(from, s.length() - query.length()); i >= 0; i--) {
+			if (s.regionMatches(true, i, query, 0, query.length())) {
+				return i;
+			}
+		}
+		return -1;
+	}
+}
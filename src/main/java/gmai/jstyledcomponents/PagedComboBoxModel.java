@@ -0,0 +1,174 @@
+package gmai.jstyledcomponents;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.swing.AbstractListModel;
+import javax.swing.ComboBoxModel;
+
+/**
+ * A ComboBoxModel for a JCheckedComboBox whose items are loaded by pages, when
+ * they are displayed. The items come from a page supplier, for example a
+ * database query or a file, and only the last used pages are kept. The checked
+ * state of the items is held by the selection model of the combo box, so it
+ * isn't lost when a page is dropped.
+ * <p>
+ * The items of a paged model start unchecked, and its popup isn't filtered by
+ * typing, which would load all the pages. The model must be used on the EDT.
+ *
+ * @param <E> the type of CheckableItem loaded
+ */
+public class PagedComboBoxModel<E extends CheckableItem> extends AbstractListModel<E> implements ComboBoxModel<E> {
+
+	/**
+	 * Loads the items of a page.
+	 *
+	 * @param <E> the type of CheckableItem loaded
+	 */
+	public interface PageSupplier<E> {
+		/**
+		 * Loads the items between from, inclusive, and to, exclusive.
+		 *
+		 * @param from the index of the first item
+		 * @param to   the index after the last item
+		 * @return the items, in order
+		 */
+		List<E> load(int from, int to);
+	}
+
+	private final PageSupplier<E> supplier;
+	private final int pageSize;
+	private final Map<Integer, List<E>> pages;
+	private int size;
+	private Object selectedItem;
+
+	/**
+	 * Constructs a model of the given size, keeping 16 pages of 100 items.
+	 *
+	 * @param size     the number of items
+	 * @param supplier loads the pages
+	 */
+	public PagedComboBoxModel(int size, PageSupplier<E> supplier) {
+		this(size, 100, 16, supplier);
+	}
+
+	/**
+	 * Constructs a model of the given size.
+	 *
+	 * @param size     the number of items
+	 * @param pageSize the number of items of a page
+	 * @param maxPages the number of pages kept, the least recently used page is
+	 *                 dropped first
+	 * @param supplier loads the pages
+	 */
+	public PagedComboBoxModel(int size, int pageSize, int maxPages, PageSupplier<E> supplier) {
+		this.size = size;
+		this.pageSize = pageSize;
+		this.supplier = supplier;
+		this.pages = new LinkedHashMap<Integer, List<E>>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Integer, List<E>> eldest) {
+				return size() > maxPages;
+			}
+		};
+	}
+
+	@Override
+	public int getSize() {
+		return size;
+	}
+
+	/**
+	 * Returns the item at the given index, loading its page if needed.
+	 *
+	 * @param index the index of the item
+	 * @return the item, or null if the supplier returned fewer items
+	 */
+	@Override
+	public E getElementAt(int index) {
+		if (index < 0 || index >= size) {
+			return null;
+		}
+		int page = index / pageSize;
+		List<E> items = pages.get(page);
+		if (items == null) {
+			int from = page * pageSize;
+			items = supplier.load(from, Math.min(size, from + pageSize));
+			pages.put(page, items);
+		}
+		int i = index - page * pageSize;
+		return i < items.size() ? items.get(i) : null;
+	}
+
+	/**
+	 * Returns the number of pages loaded.
+	 *
+	 * @return the number of pages kept
+	 */
+	public int getLoadedPageCount() {
+		return pages.size();
+	}
+
+	/**
+	 * Changes the number of items. The items after the new size are dropped.
+	 *
+	 * @param size the number of items
+	 */
+	public void setSize(int size) {
+		int previous = this.size;
+		if (size == previous) {
+			return;
+		}
+		this.size = size;
+		// The last page may have been loaded shorter
+		pages.remove(Math.min(size, previous) / pageSize);
+		if (size > previous) {
+			fireIntervalAdded(this, previous, size - 1);
+		} else {
+			pages.keySet().removeIf(page -> page * pageSize >= size);
+			fireIntervalRemoved(this, size, previous - 1);
+		}
+	}
+
+	/**
+	 * Drops the loaded pages, so the items are loaded again when displayed.
+	 */
+	public void clearPages() {
+		pages.clear();
+		if (size > 0) {
+			fireContentsChanged(this, 0, size - 1);
+		}
+	}
+
+	/**
+	 * Returns the index of the selected item, looking only in the loaded pages.
+	 *
+	 * @return the index of the selected item, or -1 if it isn't loaded
+	 */
+	public int getSelectedIndex() {
+		if (selectedItem == null) {
+			return -1;
+		}
+		for (Map.Entry<Integer, List<E>> entry : pages.entrySet()) {
+			int i = entry.getValue().indexOf(selectedItem);
+			if (i >= 0) {
+				return entry.getKey() * pageSize + i;
+			}
+		}
+		return -1;
+	}
+
+	@Override
+	public void setSelectedItem(Object anItem) {
+		if (selectedItem == null ? anItem != null : !selectedItem.equals(anItem)) {
+			selectedItem = anItem;
+			fireContentsChanged(this, -1, -1);
+		}
+	}
+
+	@Override
+	public Object getSelectedItem() {
+		return selectedItem;
+	}
+}
@@ -0,0 +1,571 @@
+package gmai.jstyledcomponents;
+
+import java.awt.Color;
+import java.awt.Container;
+import java.awt.Point;
+import java.awt.geom.Rectangle2D;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.lang.reflect.InvocationTargetException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.swing.JTextPane;
+import javax.swing.JViewport;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+import javax.swing.UIManager;
+import javax.swing.text.AttributeSet;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Element;
+import javax.swing.text.SimpleAttributeSet;
+import javax.swing.text.StyleConstants;
+import javax.swing.text.StyledDocument;
+
+/**
+ * Appends the output of a process to the text pane of a JPromptProcess. The
+ * reader threads only fill a queue, the EDT drains it at most once per frame
+ * and appends each chunk of lines with as few inserts as possible. The output
+ * can be limited to a number of lines or characters, the oldest lines are then
+ * dropped in bulk, so the memory use stays constant. The ANSI escape sequences
+ * are removed, or rendered as colors when enabled.
+ * <p>
+ * When a LogView is set, the lines are written to its file instead, and the
+ * EDT only resizes the view once per frame.
+ * <p>
+ * The lines are indexed as they are read, and numbered from 0 in the order
+ * they are appended, whether or not they were trimmed since.
+ */
+class ProcessLog {
+
+	/**
+	 * The stream a line was read from.
+	 */
+	enum Source {
+		STDOUT, STDERR
+	}
+
+	/**
+	 * A line of output, tagged with its source and the time it was read. The end
+	 * of the line has the ANSI graphic state, the runs before it, if any, have
+	 * their own state.
+	 */
+	static final class Line {
+		final Source source;
+		final long timestamp;
+		final String text;
+		final long state;
+		final int[] runEnds;
+		final long[] runStates;
+
+		Line(Source source, long timestamp, String text, long state, int[] runEnds, long[] runStates) {
+			this.source = source;
+			this.timestamp = timestamp;
+			this.text = text;
+			this.state = state;
+			this.runEnds = runEnds;
+			this.runStates = runStates;
+		}
+	}
+
+	/**
+	 * Delay between two appends, about 60 frames per second.
+	 */
+	private static final int FRAME_DELAY = 16;
+
+	/**
+	 * Lines waiting to be appended, the readers block when the EDT falls this far
+	 * behind.
+	 */
+	private static final int QUEUE_CAPACITY = 100_000;
+
+	/**
+	 * Maximum number of lines appended in one frame, so a large backlog doesn't
+	 * freeze the EDT.
+	 */
+	private static final int MAX_CHUNK = 10_000;
+
+	/**
+	 * The limits are exceeded by this fraction before trimming, so the oldest
+	 * lines are removed in a few large removes instead of one per chunk.
+	 */
+	private static final int TRIM_SLACK_DIVISOR = 8;
+
+	/**
+	 * The style cache is cleared when it grows past this size, which only
+	 * happens with outputs using many true colors.
+	 */
+	private static final int MAX_STYLES = 4096;
+
+	private final JTextPane textPane;
+	private final Runnable reload;
+	private int maxLines;
+	private int maxChars;
+	private boolean ansiColors;
+	private LogView view;
+	private volatile boolean discarded;
+	private final OutputIndex index = new OutputIndex();
+	private int appendedLines;
+	private int trimmedElements;
+	private final AnsiParser[] parsers = new AnsiParser[Source.values().length];
+
+	private final SimpleAttributeSet stdoutStyle = new SimpleAttributeSet();
+	private final SimpleAttributeSet stderrStyle = new SimpleAttributeSet();
+	private final Map<Long, AttributeSet> styles = new HashMap<>();
+
+	private final BlockingQueue<Line> pending = new LinkedBlockingQueue<>(QUEUE_CAPACITY);
+	private final List<Line> chunk = new ArrayList<>();
+	private final StringBuilder text = new StringBuilder();
+	private final AtomicBoolean scheduled = new AtomicBoolean();
+	private final Timer timer;
+
+	/**
+	 * Constructs a ProcessLog writing to the given text pane.
+	 *
+	 * @param textPane the text pane displaying the output
+	 * @param reload   refreshes the GUI after each appended chunk
+	 */
+	ProcessLog(JTextPane textPane, Runnable reload) {
+		this.textPane = textPane;
+		this.reload = reload;
+		this.timer = new Timer(FRAME_DELAY, e -> drain());
+		this.timer.setRepeats(false);
+		// A coalesced event still being dispatched would swallow the event of a restart
+		// made meanwhile, by the readers or by a long drain, and stop the appends
+		this.timer.setCoalesce(false);
+
+		Color errorColor = UIManager.getColor("Actions.Red");
+		StyleConstants.setForeground(stderrStyle, errorColor != null ? errorColor : new Color(0xC0, 0x30, 0x30));
+	}
+
+	/**
+	 * Sets the maximum number of lines kept in the text pane.
+	 *
+	 * @param maxLines the maximum number of lines, or 0 for no limit
+	 */
+	void setMaxLines(int maxLines) {
+		this.maxLines = maxLines;
+	}
+
+	/**
+	 * Sets the maximum number of characters kept in the text pane.
+	 *
+	 * @param maxChars the maximum number of characters, or 0 for no limit
+	 */
+	void setMaxChars(int maxChars) {
+		this.maxChars = maxChars;
+	}
+
+	/**
+	 * Sets whether the ANSI color and font codes of the output are rendered.
+	 * Otherwise the escape sequences are only removed.
+	 *
+	 * @param ansiColors true to render the colors
+	 */
+	void setAnsiColors(boolean ansiColors) {
+		this.ansiColors = ansiColors;
+	}
+
+	/**
+	 * Sets the view whose file receives the output instead of the text pane. The
+	 * ANSI colors are not rendered in the view.
+	 *
+	 * @param view the view of the log file, or null to use the text pane
+	 */
+	void setView(LogView view) {
+		this.view = view;
+	}
+
+	/**
+	 * Stops displaying the output, when the window is closed while the process
+	 * runs. The readers keep reading the outputs until they end and drop the
+	 * lines, so the process doesn't block on a full pipe. Must be called on the
+	 * EDT, before the file of the view is closed.
+	 */
+	void discard() {
+		discarded = true;
+		view = null;
+		pending.clear();
+	}
+
+	/**
+	 * Returns the index of the lines read so far.
+	 *
+	 * @return the output index
+	 */
+	OutputIndex getIndex() {
+		return index;
+	}
+
+	/**
+	 * Returns the first line still displayed. Must be called on the EDT.
+	 *
+	 * @return the first line
+	 */
+	int getFirstLine() {
+		// The first element of the document is the initial text, until it's trimmed
+		return view != null ? 0 : Math.max(0, trimmedElements - 1);
+	}
+
+	/**
+	 * Returns the line after the last line displayed. Must be called on the EDT.
+	 *
+	 * @return the line after the last line
+	 */
+	int getEndLine() {
+		// The view can't display all the lines of the largest files
+		return view != null ? Math.min(view.getFile().getLineCount(), view.getMaxLineCount()) : appendedLines;
+	}
+
+	/**
+	 * Reads displayed lines. Must be called on the EDT.
+	 *
+	 * @param from the first line, inclusive
+	 * @param to   the last line, exclusive
+	 * @return the lines
+	 */
+	String[] readLines(int from, int to) {
+		try {
+			if (view != null) {
+				return view.getFile().readLines(from, to);
+			}
+			StyledDocument doc = textPane.getStyledDocument();
+			Element root = doc.getDefaultRootElement();
+			String[] lines = new String[to - from];
+			for (int i = from; i < to; i++) {
+				Element element = root.getElement(i + 1 - trimmedElements);
+				int start = element.getStartOffset();
+				lines[i - from] = doc.getText(start, element.getEndOffset() - start - 1);
+			}
+			return lines;
+		} catch (IOException | BadLocationException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Finds the next or previous occurrence of a text in the displayed lines,
+	 * ignoring the case. Must be called on the EDT.
+	 *
+	 * @param query   the text to find
+	 * @param line    the line to start from
+	 * @param column  the column to start from in this line, inclusive
+	 * @param forward true to search towards the end
+	 * @return the line in the high 32 bits and the column in the low 32 bits, or
+	 *         -1 if the text isn't found
+	 */
+	long find(String query, int line, int column, boolean forward) {
+		return index.find(query, line, column, forward, getFirstLine(), getEndLine(), this::readLines);
+	}
+
+	/**
+	 * Scrolls to a displayed line and selects a part of it. Must be called on the
+	 * EDT.
+	 *
+	 * @param line   the line
+	 * @param column the start of the selection in the line
+	 * @param length the length of the selection
+	 */
+	void select(int line, int column, int length) {
+		if (view != null) {
+			view.select(line, column, length);
+			return;
+		}
+		Element element = textPane.getStyledDocument().getDefaultRootElement()
+				.getElement(line + 1 - trimmedElements);
+		int start = element.getStartOffset() + column;
+		textPane.select(start, start + length);
+		textPane.getCaret().setSelectionVisible(true);
+	}
+
+	/**
+	 * Reads the standard and error outputs of the process at the same time and
+	 * appends their lines in the order they arrive. Returns when both outputs end
+	 * and all their lines are in the text pane.
+	 *
+	 * @param proc the process to get the execution log
+	 */
+	void log(Process proc) throws InvocationTargetException, IOException, InterruptedException {
+		AtomicReference<IOException> error = new AtomicReference<>();
+		resetParsers();
+		Thread stdout = startReader("JPromptProcess-stdout",
+				() -> read(proc.getInputStream(), Source.STDOUT, error));
+		Thread stderr = startReader("JPromptProcess-stderr",
+				() -> read(proc.getErrorStream(), Source.STDERR, error));
+		stdout.join();
+		stderr.join();
+
+		SwingUtilities.invokeAndWait(this::drainAll);
+		if (error.get() != null) {
+			throw error.get();
+		}
+	}
+
+	/**
+	 * Starts each output with a new parser, in the default graphic state.
+	 */
+	private void resetParsers() {
+		for (int i = 0; i < parsers.length; i++) {
+			parsers[i] = new AnsiParser(ansiColors && view == null);
+		}
+	}
+
+	/**
+	 * Reads the lines of one of the process outputs until it ends.
+	 */
+	private void read(InputStream stream, Source source, AtomicReference<IOException> error) {
+		try (BufferedReader bfReader = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8))) {
+			String s = null;
+			while ((s = bfReader.readLine()) != null) {
+				add(source, s);
+			}
+		} catch (IOException e) {
+			error.compareAndSet(null, e);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Removes the escape sequences of a line, queues it, or writes it to the log
+	 * file of the view, and schedules an append if none is pending. Each source
+	 * is read by a single thread, which owns its parser.
+	 */
+	private void add(Source source, String s) throws IOException, InterruptedException {
+		if (discarded) {
+			return;
+		}
+		AnsiParser parser = parsers[source.ordinal()];
+		String stripped = parser.parse(s);
+		// The file of a view closed meanwhile ignores the line
+		LogView current = view;
+		if (current != null) {
+			// Append and index together, so the line numbers match
+			synchronized (pending) {
+				current.getFile().append(stripped, source == Source.STDERR);
+				index.add(stripped);
+			}
+			if (scheduled.compareAndSet(false, true)) {
+				timer.restart();
+			}
+			return;
+		}
+
+		boolean runs = parser.getRunCount() > 0;
+		int[] runEnds = runs ? parser.copyRunEnds() : null;
+		long[] runStates = runs ? parser.copyRunStates() : null;
+
+		// Timestamp and enqueue together, so the queue order matches the timestamps
+		synchronized (pending) {
+			pending.put(new Line(source, System.nanoTime(), stripped, parser.getState(), runEnds, runStates));
+			index.add(stripped);
+		}
+		if (scheduled.compareAndSet(false, true)) {
+			timer.restart();
+		}
+	}
+
+	/**
+	 * Appends the pending lines until the queue is empty. Must be called on the
+	 * EDT.
+	 */
+	private void drainAll() {
+		do {
+			drain();
+		} while (!pending.isEmpty());
+	}
+
+	/**
+	 * Appends a chunk of the pending lines, with one insert for each run of text
+	 * with the same style, one caret update and one refresh, and schedules the
+	 * next chunk if lines are left. The caret only follows the output while the
+	 * user is not selecting text. Must be called on the EDT.
+	 */
+	private void drain() {
+		scheduled.set(false);
+		if (view != null) {
+			view.linesAdded();
+			reload.run();
+			return;
+		}
+
+		pending.drainTo(chunk, MAX_CHUNK);
+		if (chunk.isEmpty()) {
+			return;
+		}
+
+		StyledDocument doc = textPane.getStyledDocument();
+		Element root = doc.getDefaultRootElement();
+		int lastLineStart = root.getElement(root.getElementCount() - 1).getStartOffset();
+		boolean follow = textPane.getSelectionStart() == textPane.getSelectionEnd()
+				&& textPane.getCaretPosition() >= lastLineStart;
+
+		AttributeSet runStyle = null;
+		for (Line line : chunk) {
+			int start = 0;
+			if (line.runEnds != null) {
+				for (int i = 0; i < line.runEnds.length; i++) {
+					runStyle = append(doc, runStyle, style(line.source, line.runStates[i]), line.text, start,
+							line.runEnds[i], start == 0);
+					start = line.runEnds[i];
+				}
+			}
+			runStyle = append(doc, runStyle, style(line.source, line.state), line.text, start, line.text.length(),
+					start == 0);
+		}
+		insert(doc, runStyle);
+		int lastLine = chunk.get(chunk.size() - 1).text.length();
+		appendedLines += chunk.size();
+		chunk.clear();
+
+		trim(doc, follow);
+
+		if (follow) {
+			// Keep the caret at the start of the last line, like a terminal
+			textPane.setCaretPosition(doc.getLength() - lastLine);
+		}
+		reload.run();
+
+		if (!pending.isEmpty() && scheduled.compareAndSet(false, true)) {
+			timer.restart();
+		}
+	}
+
+	/**
+	 * Removes the oldest lines with a single remove once the document exceeds the
+	 * limits by the slack, and drops them from the index. When the caret doesn't follow the output, the view is
+	 * scrolled up by the height of the removed lines, so the visible lines stay in
+	 * place.
+	 */
+	private void trim(StyledDocument doc, boolean follow) {
+		Element root = doc.getDefaultRootElement();
+		int lines = root.getElementCount();
+		int removeLines = 0;
+
+		if (maxLines > 0 && lines > maxLines + maxLines / TRIM_SLACK_DIVISOR) {
+			removeLines = lines - maxLines;
+		}
+		if (maxChars > 0 && doc.getLength() > maxChars + maxChars / TRIM_SLACK_DIVISOR) {
+			// Remove the line containing the first character to keep, and the ones before
+			removeLines = Math.max(removeLines, root.getElementIndex(doc.getLength() - maxChars) + 1);
+		}
+		if (removeLines == 0) {
+			return;
+		}
+
+		removeLines = Math.min(removeLines, lines - 1);
+		int end = root.getElement(removeLines).getStartOffset();
+		try {
+			double removedHeight = 0;
+			if (!follow) {
+				Rectangle2D first = textPane.modelToView2D(0);
+				Rectangle2D kept = textPane.modelToView2D(end);
+				removedHeight = first != null && kept != null ? kept.getY() - first.getY() : 0;
+			}
+
+			doc.remove(0, end);
+			trimmedElements += removeLines;
+			index.trim(getFirstLine());
+
+			Container parent = textPane.getParent();
+			if (removedHeight > 0 && parent instanceof JViewport) {
+				JViewport viewport = (JViewport) parent;
+				Point position = viewport.getViewPosition();
+				position.y = Math.max(0, position.y - (int) removedHeight);
+				viewport.setViewPosition(position);
+			}
+		} catch (BadLocationException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Collects a part of a line, inserting the text collected so far first if its
+	 * style is different.
+	 *
+	 * @return the style of the collected text
+	 */
+	private AttributeSet append(StyledDocument doc, AttributeSet runStyle, AttributeSet style, String line,
+			int start, int end, boolean newLine) {
+		if (runStyle != null && runStyle != style) {
+			insert(doc, runStyle);
+		}
+		if (newLine) {
+			text.append('\n');
+		}
+		text.append(line, start, end);
+		return style;
+	}
+
+	/**
+	 * Returns the style of the text of a source in an ANSI graphic state. The
+	 * styles are shared by all the lines with the same source and state.
+	 */
+	private AttributeSet style(Source source, long state) {
+		AttributeSet base = source == Source.STDERR ? stderrStyle : stdoutStyle;
+		if (state == 0) {
+			return base;
+		}
+
+		Long key = state << 1 | source.ordinal();
+		AttributeSet style = styles.get(key);
+		if (style == null) {
+			if (styles.size() >= MAX_STYLES) {
+				styles.clear();
+			}
+			SimpleAttributeSet attributes = new SimpleAttributeSet(base);
+			Color foreground = AnsiParser.foreground(state);
+			Color background = AnsiParser.background(state);
+			if (foreground != null) {
+				StyleConstants.setForeground(attributes, foreground);
+			}
+			if (background != null) {
+				StyleConstants.setBackground(attributes, background);
+			}
+			StyleConstants.setBold(attributes, (state & AnsiParser.BOLD) != 0);
+			StyleConstants.setItalic(attributes, (state & AnsiParser.ITALIC) != 0);
+			StyleConstants.setUnderline(attributes, (state & AnsiParser.UNDERLINE) != 0);
+			style = attributes;
+			styles.put(key, style);
+		}
+		return style;
+	}
+
+	/**
+	 * Inserts the collected text at the end of the document with the given style.
+	 */
+	private void insert(StyledDocument doc, AttributeSet style) {
+		try {
+			doc.insertString(doc.getLength(), text.toString(), style);
+		} catch (BadLocationException e) {
+			throw new IllegalStateException(e);
+		}
+		text.setLength(0);
+	}
+
+	/**
+	 * Starts a reader thread, a virtual thread when the runtime supports them.
+	 */
+	private static Thread startReader(String name, Runnable reader) {
+		try {
+			Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+			Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+			builder = builderClass.getMethod("name", String.class).invoke(builder, name);
+			return (Thread) builderClass.getMethod("start", Runnable.class).invoke(builder, reader);
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			Thread thread = new Thread(reader, name);
+			thread.setDaemon(true);
+			thread.start();
+			return thread;
+		}
+	}
+}
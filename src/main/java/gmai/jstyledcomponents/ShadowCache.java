@@ -0,0 +1,128 @@
+package gmai.jstyledcomponents;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * Shares the blurred shadows of the JRoundedCard components. Shadows are
+ * identified by their geometry and style, so all the cards with the same size,
+ * corner radius, shadow size, color and alpha paint the same image. The cache
+ * only holds weak references, the cards keep the shadow they are using, so a
+ * shadow is evicted as soon as no card uses it anymore.
+ */
+final class ShadowCache {
+
+	private static final Map<Key, ShadowReference> CACHE = new HashMap<>();
+	private static final ReferenceQueue<BufferedImage> QUEUE = new ReferenceQueue<>();
+
+	private ShadowCache() {
+	}
+
+	/**
+	 * Returns the shadow for the given key, generating it with the given factory
+	 * if no card is using it.
+	 *
+	 * @param key     the geometry and style of the shadow
+	 * @param factory generates the shadow when it is not cached
+	 * @return the shared shadow image
+	 */
+	static synchronized BufferedImage get(Key key, Supplier<BufferedImage> factory) {
+		purge();
+		ShadowReference ref = CACHE.get(key);
+		BufferedImage shadow = ref == null ? null : ref.get();
+		if (shadow == null) {
+			shadow = factory.get();
+			CACHE.put(key, new ShadowReference(key, shadow, QUEUE));
+		}
+		return shadow;
+	}
+
+	/**
+	 * Returns the number of shadows currently shared.
+	 *
+	 * @return the number of cached shadows
+	 */
+	static synchronized int size() {
+		purge();
+		return CACHE.size();
+	}
+
+	/**
+	 * Removes the shadows no longer used by any card.
+	 */
+	private static void purge() {
+		ShadowReference ref;
+		while ((ref = (ShadowReference) QUEUE.poll()) != null) {
+			if (CACHE.get(ref.key) == ref) {
+				CACHE.remove(ref.key);
+			}
+		}
+	}
+
+	/**
+	 * Identifies a shadow by its geometry and style.
+	 */
+	static final class Key {
+		private final int width;
+		private final int height;
+		private final int radius;
+		private final int size;
+		private final int rgb;
+		private final float alpha;
+
+		/**
+		 * Constructs a shadow key.
+		 *
+		 * @param width  the width of the card shape
+		 * @param height the height of the card shape
+		 * @param radius the corner radius of the card shape
+		 * @param size   the shadow size
+		 * @param color  the shadow color
+		 * @param alpha  the transparency percentage
+		 */
+		Key(int width, int height, int radius, int size, Color color, float alpha) {
+			this.width = width;
+			this.height = height;
+			this.radius = radius;
+			this.size = size;
+			this.rgb = color.getRGB();
+			this.alpha = alpha;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) {
+				return true;
+			}
+			if (!(o instanceof Key)) {
+				return false;
+			}
+			Key k = (Key) o;
+			return width == k.width && height == k.height && radius == k.radius && size == k.size && rgb == k.rgb
+					&& Float.compare(alpha, k.alpha) == 0;
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(width, height, radius, size, rgb, alpha);
+		}
+	}
+
+	/**
+	 * Weak reference that remembers its key so it can be purged from the map.
+	 */
+	private static final class ShadowReference extends WeakReference<BufferedImage> {
+		private final Key key;
+
+		private ShadowReference(Key key, BufferedImage shadow, ReferenceQueue<BufferedImage> queue) {
+			super(shadow, queue);
+			this.key = key;
+		}
+	}
+}
@@ -0,0 +1,226 @@
+package gmai.jstyledcomponents.util;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.WritableRaster;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * The BoxBlur class provides a fast approximation of a gaussian blur. The blur
+ * runs three separable box blur passes over the premultiplied ARGB pixels of
+ * the image, each pass uses running sums, so its cost doesn't depend on the blur
+ * radius. Large images are split in rows across the common ForkJoin pool.
+ */
+public class BoxBlur {
+
+	/**
+	 * Number of box passes used to approximate the gaussian.
+	 */
+	private static final int PASSES = 3;
+
+	/**
+	 * Images with at least this number of pixels are blurred in parallel.
+	 */
+	public static final int PARALLEL_THRESHOLD = 256 * 256;
+
+	/**
+	 * Scratch buffers larger than this number of pixels are not kept between
+	 * calls.
+	 */
+	private static final int MAX_SCRATCH = 1024 * 1024;
+
+	/**
+	 * Minimum number of rows processed by each parallel task.
+	 */
+	private static final int ROWS_PER_TASK = 64;
+
+	private static final ThreadLocal<int[][]> SCRATCH = ThreadLocal.withInitial(() -> new int[2][0]);
+
+	/**
+	 * Blurs the image with a radius equivalent to a gaussian filter of the same
+	 * radius. Images of type TYPE_INT_ARGB_PRE are blurred in place, other images
+	 * are copied to a new TYPE_INT_ARGB_PRE image first.
+	 *
+	 * @param img    the image to blur
+	 * @param radius the blur radius
+	 * @return the blurred image
+	 */
+	public static BufferedImage blur(BufferedImage img, int radius) {
+		return blur(img, radius, img.getWidth() * img.getHeight() >= PARALLEL_THRESHOLD);
+	}
+
+	/**
+	 * Blurs the image with a radius equivalent to a gaussian filter of the same
+	 * radius. Images of type TYPE_INT_ARGB_PRE are blurred in place, other images
+	 * are copied to a new TYPE_INT_ARGB_PRE image first.
+	 *
+	 * @param img      the image to blur
+	 * @param radius   the blur radius
+	 * @param parallel true to split the work across the common ForkJoin pool
+	 * @return the blurred image
+	 */
+	public static BufferedImage blur(BufferedImage img, int radius, boolean parallel) {
+		if (img.getType() != BufferedImage.TYPE_INT_ARGB_PRE) {
+			BufferedImage copy = new BufferedImage(img.getWidth(), img.getHeight(), BufferedImage.TYPE_INT_ARGB_PRE);
+			Graphics2D g2d = copy.createGraphics();
+			g2d.drawImage(img, 0, 0, null);
+			g2d.dispose();
+			img = copy;
+		}
+
+		int width = img.getWidth();
+		int height = img.getHeight();
+		if (radius <= 0 || width == 0 || height == 0) {
+			return img;
+		}
+
+		int size = width * height;
+		int[][] scratch = SCRATCH.get();
+		int[] pixels = scratch[0].length >= size ? scratch[0] : new int[size];
+		int[] transposed = scratch[1].length >= size ? scratch[1] : new int[size];
+
+		// Copy the pixels instead of using the data buffer, so the image stays managed
+		WritableRaster raster = img.getRaster();
+		raster.getDataElements(0, 0, width, height, pixels);
+
+		for (int boxRadius : boxRadii(radius / 3f, PASSES)) {
+			// Horizontal pass, then vertical pass over the transposed pixels
+			blurAndTranspose(pixels, transposed, width, height, boxRadius, parallel);
+			blurAndTranspose(transposed, pixels, height, width, boxRadius, parallel);
+		}
+
+		raster.setDataElements(0, 0, width, height, pixels);
+
+		if (size <= MAX_SCRATCH) {
+			scratch[0] = pixels;
+			scratch[1] = transposed;
+		}
+		return img;
+	}
+
+	/**
+	 * Computes the radius of each box so that the successive passes approximate a
+	 * gaussian with the given standard deviation.
+	 *
+	 * @param sigma  the standard deviation of the gaussian
+	 * @param passes the number of box passes
+	 * @return the radius of each pass
+	 */
+	static int[] boxRadii(float sigma, int passes) {
+		double ideal = Math.sqrt((12 * sigma * sigma / passes) + 1);
+		int lower = (int) Math.floor(ideal);
+		if (lower % 2 == 0) {
+			lower--;
+		}
+		int upper = lower + 2;
+
+		double idealCount = (12 * sigma * sigma - passes * lower * lower - 4 * passes * lower - 3 * passes)
+				/ (-4.0 * lower - 4);
+		long lowerCount = Math.round(idealCount);
+
+		int[] radii = new int[passes];
+		for (int i = 0; i < passes; i++) {
+			radii[i] = ((i < lowerCount ? lower : upper) - 1) / 2;
+		}
+		return radii;
+	}
+
+	/**
+	 * Blurs each row of the input with a box of the given radius and writes it as
+	 * a column of the output.
+	 */
+	private static void blurAndTranspose(int[] in, int[] out, int width, int height, int radius, boolean parallel) {
+		if (radius <= 0) {
+			transpose(in, out, width, height);
+		} else if (parallel && height > ROWS_PER_TASK) {
+			ForkJoinPool.commonPool().invoke(new RowsTask(in, out, width, height, radius, 0, height));
+		} else {
+			blurRows(in, out, width, height, radius, 0, height);
+		}
+	}
+
+	/**
+	 * Blurs the rows between from and to, clamping the pixels beyond the edges.
+	 */
+	private static void blurRows(int[] in, int[] out, int width, int height, int radius, int from, int to) {
+		int div = radius * 2 + 1;
+		int half = div / 2;
+		// Fixed point reciprocal of div, avoids a division per channel
+		long mul = ((1L << 32) + div - 1) / div;
+		int last = width - 1;
+
+		for (int y = from; y < to; y++) {
+			int row = y * width;
+			int sa = 0, sr = 0, sg = 0, sb = 0;
+
+			for (int i = -radius; i <= radius; i++) {
+				int p = in[row + Math.min(Math.max(i, 0), last)];
+				sa += p >>> 24;
+				sr += (p >> 16) & 0xFF;
+				sg += (p >> 8) & 0xFF;
+				sb += p & 0xFF;
+			}
+
+			int o = y;
+			for (int x = 0; x < width; x++) {
+				out[o] = (int) (((sa + half) * mul) >>> 32) << 24 | (int) (((sr + half) * mul) >>> 32) << 16
+						| (int) (((sg + half) * mul) >>> 32) << 8 | (int) (((sb + half) * mul) >>> 32);
+				o += height;
+
+				int p1 = in[row + Math.min(x + radius + 1, last)];
+				int p2 = in[row + Math.max(x - radius, 0)];
+				sa += (p1 >>> 24) - (p2 >>> 24);
+				sr += ((p1 >> 16) & 0xFF) - ((p2 >> 16) & 0xFF);
+				sg += ((p1 >> 8) & 0xFF) - ((p2 >> 8) & 0xFF);
+				sb += (p1 & 0xFF) - (p2 & 0xFF);
+			}
+		}
+	}
+
+	/**
+	 * Copies the rows of the input as columns of the output.
+	 */
+	private static void transpose(int[] in, int[] out, int width, int height) {
+		for (int y = 0; y < height; y++) {
+			int row = y * width;
+			for (int x = 0, o = y; x < width; x++, o += height) {
+				out[o] = in[row + x];
+			}
+		}
+	}
+
+	/**
+	 * Splits the rows of a pass until each task has a few rows to blur.
+	 */
+	private static final class RowsTask extends RecursiveAction {
+		private final int[] in;
+		private final int[] out;
+		private final int width;
+		private final int height;
+		private final int radius;
+		private final int from;
+		private final int to;
+
+		private RowsTask(int[] in, int[] out, int width, int height, int radius, int from, int to) {
+			this.in = in;
+			this.out = out;
+			this.width = width;
+			this.height = height;
+			this.radius = radius;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from <= ROWS_PER_TASK) {
+				blurRows(in, out, width, height, radius, from, to);
+			} else {
+				int middle = (from + to) >>> 1;
+				invokeAll(new RowsTask(in, out, width, height, radius, from, middle),
+						new RowsTask(in, out, width, height, radius, middle, to));
+			}
+		}
+	}
+}
@@ -0,0 +1,112 @@
+package gmai.jstyledcomponents.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+import javax.imageio.stream.ImageInputStreamImpl;
+
+/**
+ * An ImageInputStream that reads a file through positioned reads of a
+ * FileChannel. Unlike the streams created by ImageIO for an InputStream, it
+ * doesn't copy the data to a cache, seeking only moves the read position, so
+ * the readers can skip the parts of the file they don't need.
+ */
+class FileChannelImageInputStream extends ImageInputStreamImpl {
+
+	private static final int BUFFER_SIZE = 8192;
+
+	private final FileChannel channel;
+	private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+	/**
+	 * The file position of the first byte in the buffer, or -1 if the buffer is
+	 * empty.
+	 */
+	private long bufferPos = -1;
+
+	/**
+	 * Constructs a stream reading the given channel from its start.
+	 * 
+	 * @param channel the file channel, closed with the stream
+	 */
+	FileChannelImageInputStream(FileChannel channel) {
+		this.channel = channel;
+	}
+
+	@Override
+	public int read() throws IOException {
+		checkClosed();
+		bitOffset = 0;
+		if (!fill()) {
+			return -1;
+		}
+		return buffer.array()[(int) (streamPos++ - bufferPos)] & 0xFF;
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		checkClosed();
+		if (off < 0 || len < 0 || off + len > b.length) {
+			throw new IndexOutOfBoundsException();
+		}
+		if (len == 0) {
+			return 0;
+		}
+		bitOffset = 0;
+
+		// Large reads go straight to the destination array
+		if (len >= BUFFER_SIZE) {
+			int n = channel.read(ByteBuffer.wrap(b, off, len), streamPos);
+			if (n > 0) {
+				streamPos += n;
+			}
+			return n;
+		}
+
+		if (!fill()) {
+			return -1;
+		}
+		int start = (int) (streamPos - bufferPos);
+		int n = Math.min(buffer.limit() - start, len);
+		System.arraycopy(buffer.array(), start, b, off, n);
+		streamPos += n;
+		return n;
+	}
+
+	@Override
+	public long length() {
+		try {
+			return channel.size();
+		} catch (IOException e) {
+			return -1;
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		super.close();
+		channel.close();
+	}
+
+	/**
+	 * Makes sure the buffer contains the byte at the current position.
+	 * 
+	 * @return false if the end of the file was reached
+	 */
+	private boolean fill() throws IOException {
+		if (bufferPos >= 0 && streamPos >= bufferPos && streamPos < bufferPos + buffer.limit()) {
+			return true;
+		}
+		buffer.clear();
+		int n = channel.read(buffer, streamPos);
+		if (n <= 0) {
+			buffer.limit(0);
+			bufferPos = -1;
+			return false;
+		}
+		buffer.flip();
+		bufferPos = streamPos;
+		return true;
+	}
+}
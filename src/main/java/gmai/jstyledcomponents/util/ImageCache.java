@@ -0,0 +1,261 @@
+package gmai.jstyledcomponents.util;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * The ImageCache class is a bounded cache of decoded images. Entries are kept
+ * in least recently used order and strongly referenced while the total size
+ * stays under the byte budget. Entries evicted from the budget are kept behind
+ * soft references, so they can still be reused until the garbage collector
+ * needs the memory.
+ * <p>
+ * Images returned by the cache are shared between all callers and must not be
+ * modified.
+ */
+public class ImageCache {
+
+	/**
+	 * The default byte budget of the cache, 32 MB.
+	 */
+	public static final long DEFAULT_MAX_BYTES = 32L * 1024 * 1024;
+
+	private final LinkedHashMap<Key, BufferedImage> strong = new LinkedHashMap<>(16, 0.75f, true);
+	private final Map<Key, SoftEntry> soft = new HashMap<>();
+	private final ReferenceQueue<BufferedImage> queue = new ReferenceQueue<>();
+
+	private long maxBytes;
+	private long currentBytes;
+
+	private long hits;
+	private long misses;
+	private long evictions;
+
+	/**
+	 * Constructs an ImageCache with the default byte budget.
+	 */
+	public ImageCache() {
+		this(DEFAULT_MAX_BYTES);
+	}
+
+	/**
+	 * Constructs an ImageCache with the given byte budget.
+	 *
+	 * @param maxBytes the maximum number of bytes strongly held by the cache
+	 */
+	public ImageCache(long maxBytes) {
+		this.maxBytes = maxBytes;
+	}
+
+	/**
+	 * Returns the cached image for the given key, or null if there is none.
+	 *
+	 * @param path         the absolute file path of the image
+	 * @param width        the target width, or -1 for the original size
+	 * @param height       the target height, or -1 for the original size
+	 * @param lastModified the modification time of the file
+	 * @return the cached image, or null if it is not in the cache
+	 */
+	public synchronized BufferedImage get(String path, int width, int height, long lastModified) {
+		purge();
+		Key key = new Key(path, width, height, lastModified);
+
+		BufferedImage img = strong.get(key);
+		if (img == null) {
+			SoftEntry ref = soft.remove(key);
+			img = ref == null ? null : ref.get();
+			if (img != null) {
+				// Promote the image back to the strongly held entries
+				store(key, img);
+			}
+		}
+
+		if (img != null) {
+			hits++;
+		} else {
+			misses++;
+		}
+		return img;
+	}
+
+	/**
+	 * Adds the given image to the cache.
+	 *
+	 * @param path         the absolute file path of the image
+	 * @param width        the target width, or -1 for the original size
+	 * @param height       the target height, or -1 for the original size
+	 * @param lastModified the modification time of the file
+	 * @param img          the image to cache
+	 */
+	public synchronized void put(String path, int width, int height, long lastModified, BufferedImage img) {
+		purge();
+		Key key = new Key(path, width, height, lastModified);
+		soft.remove(key);
+		store(key, img);
+	}
+
+	/**
+	 * Removes all the images from the cache. The counters are not reset.
+	 */
+	public synchronized void clear() {
+		strong.clear();
+		soft.clear();
+		currentBytes = 0;
+	}
+
+	/**
+	 * Sets the maximum number of bytes strongly held by the cache, evicting the
+	 * least recently used images if needed.
+	 *
+	 * @param maxBytes the new byte budget
+	 */
+	public synchronized void setMaxBytes(long maxBytes) {
+		this.maxBytes = maxBytes;
+		trim();
+	}
+
+	/**
+	 * Returns the maximum number of bytes strongly held by the cache.
+	 *
+	 * @return the byte budget
+	 */
+	public synchronized long getMaxBytes() {
+		return maxBytes;
+	}
+
+	/**
+	 * Returns the number of bytes currently strongly held by the cache.
+	 *
+	 * @return the used bytes
+	 */
+	public synchronized long getCurrentBytes() {
+		return currentBytes;
+	}
+
+	/**
+	 * Returns the number of lookups that found an image.
+	 *
+	 * @return the hit count
+	 */
+	public synchronized long getHitCount() {
+		return hits;
+	}
+
+	/**
+	 * Returns the number of lookups that did not find an image.
+	 *
+	 * @return the miss count
+	 */
+	public synchronized long getMissCount() {
+		return misses;
+	}
+
+	/**
+	 * Returns the number of images evicted from the byte budget.
+	 *
+	 * @return the eviction count
+	 */
+	public synchronized long getEvictionCount() {
+		return evictions;
+	}
+
+	/**
+	 * Stores the image as a strongly held entry and trims the cache to the budget.
+	 */
+	private void store(Key key, BufferedImage img) {
+		BufferedImage old = strong.put(key, img);
+		if (old != null) {
+			currentBytes -= sizeOf(old);
+		}
+		currentBytes += sizeOf(img);
+		trim();
+	}
+
+	/**
+	 * Moves the least recently used entries to the soft references until the cache
+	 * is under the byte budget.
+	 */
+	private void trim() {
+		Iterator<Map.Entry<Key, BufferedImage>> it = strong.entrySet().iterator();
+		while (currentBytes > maxBytes && it.hasNext()) {
+			Map.Entry<Key, BufferedImage> eldest = it.next();
+			it.remove();
+			currentBytes -= sizeOf(eldest.getValue());
+			soft.put(eldest.getKey(), new SoftEntry(eldest.getKey(), eldest.getValue(), queue));
+			evictions++;
+		}
+	}
+
+	/**
+	 * Removes the soft entries already cleared by the garbage collector.
+	 */
+	private void purge() {
+		SoftEntry ref;
+		while ((ref = (SoftEntry) queue.poll()) != null) {
+			if (soft.get(ref.key) == ref) {
+				soft.remove(ref.key);
+			}
+		}
+	}
+
+	/**
+	 * Estimates the memory used by the pixels of the image.
+	 */
+	private static long sizeOf(BufferedImage img) {
+		DataBuffer buffer = img.getRaster().getDataBuffer();
+		return (long) buffer.getSize() * buffer.getNumBanks() * DataBuffer.getDataTypeSize(buffer.getDataType()) / 8;
+	}
+
+	/**
+	 * Identifies a cached image by its file, size and modification time.
+	 */
+	private static final class Key {
+		private final String path;
+		private final int width;
+		private final int height;
+		private final long lastModified;
+
+		private Key(String path, int width, int height, long lastModified) {
+			this.path = path;
+			this.width = width;
+			this.height = height;
+			this.lastModified = lastModified;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) {
+				return true;
+			}
+			if (!(o instanceof Key)) {
+				return false;
+			}
+			Key k = (Key) o;
+			return width == k.width && height == k.height && lastModified == k.lastModified && path.equals(k.path);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(path, width, height, lastModified);
+		}
+	}
+
+	/**
+	 * Soft reference that remembers its key so it can be purged from the map.
+	 */
+	private static final class SoftEntry extends SoftReference<BufferedImage> {
+		private final Key key;
+
+		private SoftEntry(Key key, BufferedImage img, ReferenceQueue<BufferedImage> queue) {
+			super(img, queue);
+			this.key = key;
+		}
+	}
+}
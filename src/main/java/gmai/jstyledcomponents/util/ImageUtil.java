@@ -3,12 +3,28 @@ package gmai.jstyledcomponents.util;
 import static java.util.Objects.requireNonNull;
 
 import java.awt.Graphics2D;
-import java.awt.Image;
+import java.awt.GraphicsEnvironment;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.Transparency;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
+import javax.imageio.IIOException;
 import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
 
 /**
  * The ImageUtil class provides utility methods for working with images.
@@ -16,22 +32,228 @@ import javax.imageio.ImageIO;
 public class ImageUtil {
 
 	/**
-	 * Returns a BufferedImage object from the specified file path.
+	 * The process-wide cache of decoded images. Its byte budget can be set with
+	 * the "jstyledcomponents.imageCache.maxBytes" system property.
+	 */
+	private static final ImageCache CACHE = new ImageCache(
+			Long.getLong("jstyledcomponents.imageCache.maxBytes", ImageCache.DEFAULT_MAX_BYTES));
+
+	/**
+	 * The background threads that decode the images requested asynchronously.
+	 */
+	private static final ThreadPoolExecutor LOADER = createLoader(
+			Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors())));
+
+	/**
+	 * The asynchronous loads in progress, so the same image requested by several
+	 * components is decoded only once.
+	 */
+	private static final Map<String, CompletableFuture<BufferedImage>> LOADING = new ConcurrentHashMap<>();
+
+	/**
+	 * Creates the executor of the asynchronous loads. Its threads are daemons and
+	 * stop when idle.
+	 * 
+	 * @param threads the maximum number of decoding threads
+	 * @return the executor
+	 */
+	private static ThreadPoolExecutor createLoader(int threads) {
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<>(), r -> {
+					Thread thread = new Thread(r, "ImageUtil-loader");
+					thread.setDaemon(true);
+					return thread;
+				});
+		executor.allowCoreThreadTimeOut(true);
+		return executor;
+	}
+
+	/**
+	 * Returns the process-wide cache used by the getImage methods.
+	 * 
+	 * @return the image cache
+	 */
+	public static ImageCache getCache() {
+		return CACHE;
+	}
+
+	/**
+	 * Returns a BufferedImage object from the specified file path. The image is
+	 * shared through the image cache and must not be modified.
 	 * 
 	 * @param path the file path of the image
 	 * @return a BufferedImage object of the image, or null if an error occurs
 	 */
 	public static BufferedImage getImage(String path) {
-		try {
-			return ImageIO.read(new File(path));
-		} catch (IOException e) {
+		File file = new File(path).getAbsoluteFile();
+		long lastModified = file.lastModified();
+
+		BufferedImage img = CACHE.get(file.getPath(), -1, -1, lastModified);
+		if (img == null) {
+			img = load(file, null, -1, -1, lastModified);
+		}
+		return img;
+	}
+
+	/**
+	 * Loads the image of the specified file path in a background thread. If the
+	 * image is already cached, the returned future is already completed. The image
+	 * is shared through the image cache and must not be modified.
+	 * 
+	 * @param path the file path of the image
+	 * @return a future completed with the image, or with null if an error occurs
+	 */
+	public static CompletableFuture<BufferedImage> getImageAsync(String path) {
+		return getImageAsync(path, -1, -1);
+	}
+
+	/**
+	 * Loads and resizes the image of the specified file path in a background
+	 * thread. If the image is already cached, the returned future is already
+	 * completed. The image is shared through the image cache and must not be
+	 * modified.
+	 * 
+	 * @param path the file path of the image
+	 * @param newW the new width of the image, or -1 to keep the original size
+	 * @param newH the new height of the image, or -1 to keep the original size
+	 * @return a future completed with the image, or with null if an error occurs
+	 */
+	public static CompletableFuture<BufferedImage> getImageAsync(String path, int newW, int newH) {
+		File file = new File(path).getAbsoluteFile();
+		long lastModified = file.lastModified();
+
+		BufferedImage img = CACHE.get(file.getPath(), newW, newH, lastModified);
+		if (img != null) {
+			return CompletableFuture.completedFuture(img);
+		}
+
+		String key = file.getPath() + "|" + newW + "x" + newH + "|" + lastModified;
+		CompletableFuture<BufferedImage> future = LOADING.computeIfAbsent(key,
+				k -> CompletableFuture.supplyAsync(() -> load(file, null, newW, newH, lastModified), LOADER));
+		future.whenComplete((loaded, e) -> LOADING.remove(key, future));
+		return future;
+	}
+
+	/**
+	 * Decodes the image of the specified file path in a background thread, at
+	 * about twice the target size, without caching it. For a component keeping
+	 * its own copy of an image it rescales often.
+	 * 
+	 * @param path    the file path of the image
+	 * @param targetW the width the image will be resized to, or -1 to keep the
+	 *                original size
+	 * @param targetH the height the image will be resized to, or -1 to keep the
+	 *                original size
+	 * @return a future completed with the image, or with null if an error occurs
+	 */
+	public static CompletableFuture<BufferedImage> decodeAsync(String path, int targetW, int targetH) {
+		File file = new File(path).getAbsoluteFile();
+		return CompletableFuture.supplyAsync(() -> read(file, null, targetW, targetH), LOADER);
+	}
+
+	/**
+	 * Resizes the specified BufferedImage object in a background thread with the
+	 * BALANCED strategy. The resized image isn't cached.
+	 * 
+	 * @param img  the BufferedImage object to resize
+	 * @param newW the new width of the image
+	 * @param newH the new height of the image
+	 * @return a future completed with the resized image
+	 */
+	public static CompletableFuture<BufferedImage> resizeAsync(BufferedImage img, int newW, int newH) {
+		return CompletableFuture.supplyAsync(() -> resize(img, newW, newH), LOADER);
+	}
+
+	/**
+	 * Decodes and resizes the image of the specified file and adds it to the
+	 * cache.
+	 * 
+	 * @param file         the image file
+	 * @param region       the region of the image to decode, or null for the
+	 *                     whole image
+	 * @param newW         the new width of the image, or -1 to keep the original
+	 *                     size
+	 * @param newH         the new height of the image, or -1 to keep the original
+	 *                     size
+	 * @param lastModified the modification time of the file
+	 * @return a BufferedImage object of the image, or null if an error occurs
+	 */
+	private static BufferedImage load(File file, Rectangle region, int newW, int newH, long lastModified) {
+		BufferedImage img = read(file, region, newW, newH);
+		if (img != null) {
+			if (newW >= 0 && newH >= 0) {
+				// The source is not cached, only the resized copy is reused
+				img = resize(img, newW, newH);
+			}
+			CACHE.put(cacheName(file, region), newW, newH, lastModified, img);
+		}
+		return img;
+	}
+
+	/**
+	 * Returns the name identifying the image of the file, or the region of the
+	 * file, in the image cache.
+	 */
+	private static String cacheName(File file, Rectangle region) {
+		if (region == null) {
+			return file.getPath();
+		}
+		return file.getPath() + "#" + region.x + "," + region.y + "," + region.width + "x" + region.height;
+	}
+
+	/**
+	 * Decodes the image of the specified file. When a target size is given, the
+	 * reader skips source pixels so the decoded image is about twice the target
+	 * size, which leaves one smoothing step to the resize, and only the requested
+	 * region is decoded.
+	 * 
+	 * @param file    the image file
+	 * @param region  the region of the image to decode, or null for the whole
+	 *                image
+	 * @param targetW the width the image will be resized to, or -1
+	 * @param targetH the height the image will be resized to, or -1
+	 * @return a BufferedImage object of the image, or null if an error occurs
+	 */
+	private static BufferedImage read(File file, Rectangle region, int targetW, int targetH) {
+		try (ImageInputStream input = new FileChannelImageInputStream(
+				FileChannel.open(file.toPath(), StandardOpenOption.READ))) {
+			Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+			if (!readers.hasNext()) {
+				throw new IIOException("Unsupported image format: " + file);
+			}
+
+			ImageReader reader = readers.next();
+			try {
+				reader.setInput(input, true, true);
+				ImageReadParam param = reader.getDefaultReadParam();
+
+				int srcW = reader.getWidth(0);
+				int srcH = reader.getHeight(0);
+				if (region != null) {
+					param.setSourceRegion(region);
+					srcW = Math.min(region.width, srcW - region.x);
+					srcH = Math.min(region.height, srcH - region.y);
+				}
+
+				if (targetW > 0 && targetH > 0) {
+					int step = Math.min(srcW / (targetW * 2), srcH / (targetH * 2));
+					if (step > 1) {
+						param.setSourceSubsampling(step, step, 0, 0);
+					}
+				}
+				return reader.read(0, param);
+			} finally {
+				reader.dispose();
+			}
+		} catch (IOException | RuntimeException e) {
 			System.out.println("Error, " + e.getStackTrace()[0].getMethodName() + " : " + e);
 			return null;
 		}
 	}
 
 	/**
-	 * Resizes the specified BufferedImage object to the specified dimensions.
+	 * Resizes the specified BufferedImage object to the specified dimensions with
+	 * the BALANCED strategy.
 	 * 
 	 * @param img  the BufferedImage object to resize
 	 * @param newW the new width of the image
@@ -39,19 +261,72 @@ public class ImageUtil {
 	 * @return a resized BufferedImage object
 	 */
 	public static BufferedImage resize(BufferedImage img, int newW, int newH) {
-		Image tmp = img.getScaledInstance(newW, newH, Image.SCALE_SMOOTH);
-		BufferedImage dimg = new BufferedImage(newW, newH, BufferedImage.TYPE_INT_ARGB);
+		return resize(img, newW, newH, ResizeQuality.BALANCED);
+	}
+
+	/**
+	 * Resizes the specified BufferedImage object to the specified dimensions. When
+	 * the strategy is progressive, the image is halved until it is less than twice
+	 * the target size, so each step reads every source pixel, and then scaled to
+	 * the target size. The result is compatible with the screen, so it can be
+	 * drawn without conversion.
+	 * 
+	 * @param img     the BufferedImage object to resize
+	 * @param newW    the new width of the image
+	 * @param newH    the new height of the image
+	 * @param quality the resize strategy
+	 * @return a resized BufferedImage object
+	 */
+	public static BufferedImage resize(BufferedImage img, int newW, int newH, ResizeQuality quality) {
+		BufferedImage current = img;
+		int w = img.getWidth();
+		int h = img.getHeight();
 
-		Graphics2D g2d = dimg.createGraphics();
-		g2d.drawImage(tmp, 0, 0, null);
-		g2d.dispose();
+		do {
+			if (quality.isProgressive() && w / 2 >= newW) {
+				w /= 2;
+			} else {
+				w = newW;
+			}
+			if (quality.isProgressive() && h / 2 >= newH) {
+				h /= 2;
+			} else {
+				h = newH;
+			}
 
-		return dimg;
+			BufferedImage step = createCompatibleImage(w, h);
+			Graphics2D g2d = step.createGraphics();
+			g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, quality.getInterpolation());
+			g2d.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+			g2d.drawImage(current, 0, 0, w, h, null);
+			g2d.dispose();
+
+			current = step;
+		} while (w != newW || h != newH);
+
+		return current;
+	}
+
+	/**
+	 * Creates a new translucent image compatible with the default screen, or an
+	 * ARGB image when running headless.
+	 * 
+	 * @param width  the image width
+	 * @param height the image height
+	 * @return a translucent empty image
+	 */
+	public static BufferedImage createCompatibleImage(int width, int height) {
+		if (GraphicsEnvironment.isHeadless()) {
+			return new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+		}
+		return GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice().getDefaultConfiguration()
+				.createCompatibleImage(width, height, Transparency.TRANSLUCENT);
 	}
 
 	/**
 	 * Returns a resized BufferedImage object from the specified file path and
-	 * dimensions.
+	 * dimensions. The image is shared through the image cache and must not be
+	 * modified.
 	 * 
 	 * @param path the file path of the image
 	 * @param newW the new width of the image
@@ -59,6 +334,35 @@ public class ImageUtil {
 	 * @return a resized BufferedImage object of the image
 	 */
 	public static BufferedImage getImage(String path, int newW, int newH) {
-		return resize(requireNonNull(getImage(path)), newW, newH);
+		File file = new File(path).getAbsoluteFile();
+		long lastModified = file.lastModified();
+
+		BufferedImage img = CACHE.get(file.getPath(), newW, newH, lastModified);
+		if (img == null) {
+			img = requireNonNull(load(file, null, newW, newH, lastModified));
+		}
+		return img;
+	}
+
+	/**
+	 * Returns a resized BufferedImage object from a region of the image of the
+	 * specified file path. Only the region is decoded. The image is shared through
+	 * the image cache and must not be modified.
+	 * 
+	 * @param path   the file path of the image
+	 * @param region the region of the image to crop
+	 * @param newW   the new width of the image
+	 * @param newH   the new height of the image
+	 * @return a resized BufferedImage object of the region
+	 */
+	public static BufferedImage getImage(String path, Rectangle region, int newW, int newH) {
+		File file = new File(path).getAbsoluteFile();
+		long lastModified = file.lastModified();
+
+		BufferedImage img = CACHE.get(cacheName(file, region), newW, newH, lastModified);
+		if (img == null) {
+			img = requireNonNull(load(file, region, newW, newH, lastModified));
+		}
+		return img;
 	}
 }
\ No newline at end of file
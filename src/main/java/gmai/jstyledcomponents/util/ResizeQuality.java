@@ -0,0 +1,52 @@
+package gmai.jstyledcomponents.util;
+
+import java.awt.RenderingHints;
+
+/**
+ * The ResizeQuality enum defines the strategies used by ImageUtil to resize
+ * images, from the fastest to the smoothest.
+ */
+public enum ResizeQuality {
+
+	/**
+	 * Scales the image in a single bilinear step. Fast, but downscaling by more
+	 * than half skips source pixels and may look aliased.
+	 */
+	SPEED(RenderingHints.VALUE_INTERPOLATION_BILINEAR, false),
+
+	/**
+	 * Halves the image with bilinear steps until it reaches the target size.
+	 */
+	BALANCED(RenderingHints.VALUE_INTERPOLATION_BILINEAR, true),
+
+	/**
+	 * Halves the image with bicubic steps until it reaches the target size.
+	 */
+	QUALITY(RenderingHints.VALUE_INTERPOLATION_BICUBIC, true);
+
+	private final Object interpolation;
+	private final boolean progressive;
+
+	private ResizeQuality(Object interpolation, boolean progressive) {
+		this.interpolation = interpolation;
+		this.progressive = progressive;
+	}
+
+	/**
+	 * Returns the interpolation rendering hint used by each step.
+	 * 
+	 * @return a value of RenderingHints.KEY_INTERPOLATION
+	 */
+	public Object getInterpolation() {
+		return interpolation;
+	}
+
+	/**
+	 * Returns whether the image is downscaled in successive halving steps.
+	 * 
+	 * @return true if the downscaling is progressive
+	 */
+	public boolean isProgressive() {
+		return progressive;
+	}
+}